@@ -0,0 +1,62 @@
+package com.sortify;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * organizeFiles over a generated tree. Organizing moves the files away, so every
+ * iteration writes, scans and classifies a fresh tree first and then times exactly
+ * one organize. Moves stay on one file system, so this measures renames and
+ * directory handling rather than copies.
+ *
+ * Run with: java -jar target/benchmarks.jar OrganizeBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrganizeBenchmark {
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"4"})
+    public int fanOut;
+
+    @Param({"50"})
+    public int filesPerDirectory;
+
+    private Path workspace;
+    private Path output;
+    private FileOrganizer organizer;
+    private List<FileInfo> files;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        workspace = Files.createTempDirectory("sortify-bench");
+        Path source = workspace.resolve("source");
+        output = workspace.resolve("organized");
+        // Small files: the move cost does not depend on size
+        new SyntheticTree(depth, fanOut, filesPerDirectory, 4096, 0.0, 42).write(source);
+        organizer = new FileOrganizer();
+        files = organizer.scanDirectory(source, true, true);
+        organizer.classifyFiles(files);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        SyntheticTree.delete(workspace);
+    }
+
+    @Benchmark
+    public void organizeFiles() throws IOException {
+        organizer.organizeFiles(files, output);
+    }
+}
@@ -0,0 +1,133 @@
+package com.sortify;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end run of scan → classify → duplicates → organize over a generated tree,
+ * with files/sec, MB/sec hashed and the allocation rate for each phase. Use it to catch
+ * pipeline regressions quickly; the JMH benchmarks give the statistically sound numbers.
+ *
+ * Run with: java -cp target/benchmarks.jar com.sortify.PipelineRunner
+ *           [depth] [fanOut] [filesPerDirectory] [maxFileSize] [duplicateRatio] [seed]
+ */
+public final class PipelineRunner {
+
+    private PipelineRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int fanOut = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int filesPerDirectory = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int maxFileSize = args.length > 3 ? Integer.parseInt(args[3]) : 262144;
+        double duplicateRatio = args.length > 4 ? Double.parseDouble(args[4]) : 0.2;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        Path workspace = Files.createTempDirectory("sortify-bench");
+        Path source = workspace.resolve("source");
+        AllocationMeter meter = new AllocationMeter();
+        try {
+            SyntheticTree tree = new SyntheticTree(depth, fanOut, filesPerDirectory, maxFileSize, duplicateRatio, seed);
+            tree.write(source);
+            System.out.println("Tree: " + tree);
+
+            FileOrganizer organizer = new FileOrganizer();
+
+            Phase phase = new Phase("Scan", meter);
+            List<FileInfo> files = organizer.scanDirectory(source, true, true);
+            phase.report(files.size(), 0);
+
+            phase = new Phase("Classify", meter);
+            organizer.classifyFiles(files);
+            phase.report(files.size(), 0);
+
+            phase = new Phase("Duplicates", meter);
+            organizer.detectDuplicatesAdvanced(files);
+            phase.report(files.size(), organizer.getLastDuplicateReport().getBytesHashed());
+            System.out.println("  " + organizer.getLastDuplicateReport());
+
+            phase = new Phase("Organize", meter);
+            organizer.organizeFiles(files, workspace.resolve("organized"));
+            phase.report(files.size(), 0);
+        } finally {
+            SyntheticTree.delete(workspace);
+        }
+    }
+
+    private static final class Phase {
+        private final String name;
+        private final AllocationMeter meter;
+        private final long startNanos;
+        private final long startAllocated;
+
+        Phase(String name, AllocationMeter meter) {
+            this.name = name;
+            this.meter = meter;
+            this.startAllocated = meter.allocated();
+            this.startNanos = System.nanoTime();
+        }
+
+        void report(int files, long bytesHashed) {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            double allocatedMb = (meter.allocated() - startAllocated) / (1024.0 * 1024.0);
+            StringBuilder line = new StringBuilder(String.format("%-10s %8.1f ms %12.0f files/s", name, seconds * 1000, files / seconds));
+            if (bytesHashed > 0) {
+                line.append(String.format(" %10.1f MB/s hashed", bytesHashed / (1024.0 * 1024.0) / seconds));
+            }
+            line.append(String.format(" %10.1f MB allocated (%.1f MB/s)", allocatedMb, allocatedMb / seconds));
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Heap bytes allocated by all threads so far: current heap usage plus everything the
+     * collectors have freed. This counts the hashing and walking worker pools too, which
+     * per-thread counters miss once the pools shut down. GC notifications arrive
+     * asynchronously, so figures for very short phases are approximate.
+     */
+    private static final class AllocationMeter implements NotificationListener {
+        private final Set<String> heapPools = new HashSet<>();
+        private final AtomicLong freedByGc = new AtomicLong();
+
+        AllocationMeter() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) heapPools.add(pool.getName());
+            }
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+            GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+            long freed = 0;
+            for (String pool : heapPools) {
+                MemoryUsage before = info.getMemoryUsageBeforeGc().get(pool);
+                MemoryUsage after = info.getMemoryUsageAfterGc().get(pool);
+                if (before != null && after != null) freed += before.getUsed() - after.getUsed();
+            }
+            freedByGc.addAndGet(freed);
+        }
+
+        long allocated() {
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() + freedByGc.get();
+        }
+    }
+}
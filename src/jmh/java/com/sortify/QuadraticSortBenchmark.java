@@ -0,0 +1,54 @@
+package com.sortify;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sortFilesWithAlgorithm for the quadratic algorithms: Bubble, Selection and Insertion Sort.
+ * Capped at 100k files, where Bubble Sort already takes tens of seconds per sort. Each sort
+ * is measured once per iteration.
+ *
+ * Run with: java -jar target/benchmarks.jar QuadraticSortBenchmark -p size=10000
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QuadraticSortBenchmark {
+
+    @Param({"Bubble Sort", "Selection Sort", "Insertion Sort"})
+    public String algorithm;
+
+    @Param({"Name", "Size", "Creation Date", "Last Modified", "Type"})
+    public String criteria;
+
+    @Param({"true", "false"})
+    public boolean ascending;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES"})
+    public SyntheticFiles.Distribution distribution;
+
+    private FileOrganizer organizer;
+    private List<FileInfo> files;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        organizer = new FileOrganizer();
+        files = SyntheticFiles.generate(size, distribution, criteria, 42);
+    }
+
+    @Benchmark
+    public List<FileInfo> sort() {
+        List<FileInfo> copy = new ArrayList<>(files);
+        organizer.sortFilesWithAlgorithm(copy, criteria, ascending, algorithm);
+        return copy;
+    }
+}
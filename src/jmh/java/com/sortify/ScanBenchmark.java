@@ -0,0 +1,91 @@
+package com.sortify;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * scanDirectory and detectDuplicatesAdvanced over a generated tree.
+ * The tree is written once per trial, so these numbers are for a warm page cache.
+ * Besides ops/s, the {@code files} and {@code bytesHashed} counters are reported as
+ * rates, which gives files/sec and bytes/sec hashed. Add {@code -prof gc} for the
+ * allocation rate. The hash cache is left off so every run hashes for real.
+ *
+ * Run with: java -jar target/benchmarks.jar ScanBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"4"})
+    public int fanOut;
+
+    @Param({"50"})
+    public int filesPerDirectory;
+
+    @Param({"262144"})
+    public int maxFileSize;
+
+    @Param({"0.0", "0.2", "0.5"})
+    public double duplicateRatio;
+
+    private Path root;
+    private FileOrganizer organizer;
+    private List<FileInfo> scanned;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long files;
+        public long bytesHashed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            bytesHashed = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sortify-bench");
+        SyntheticTree tree = new SyntheticTree(depth, fanOut, filesPerDirectory, maxFileSize, duplicateRatio, 42);
+        tree.write(root);
+        System.out.println("# Tree: " + tree);
+        organizer = new FileOrganizer();
+        scanned = organizer.scanDirectory(root, true, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticTree.delete(root);
+    }
+
+    @Benchmark
+    public List<FileInfo> scanDirectory(Counters counters) throws IOException {
+        List<FileInfo> files = organizer.scanDirectory(root, true, true);
+        counters.files += files.size();
+        return files;
+    }
+
+    @Benchmark
+    public Map<String, List<FileInfo>> detectDuplicates(Counters counters) throws IOException, NoSuchAlgorithmException {
+        Map<String, List<FileInfo>> duplicates = organizer.detectDuplicatesAdvanced(scanned);
+        counters.files += scanned.size();
+        counters.bytesHashed += organizer.getLastDuplicateReport().getBytesHashed();
+        return duplicates;
+    }
+}
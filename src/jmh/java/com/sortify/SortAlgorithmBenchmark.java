@@ -0,0 +1,56 @@
+package com.sortify;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sortFilesWithAlgorithm for the O(n log n) and linear algorithms, up to 1M files by default.
+ * Each invocation sorts a fresh copy of the generated list; the copy is a single
+ * array copy and is negligible next to the sort. The default 4 GB heap covers 1M rows;
+ * 10M rows need about 12 GB; a command-line -jvmArgsAppend replaces the default:
+ *
+ * Run with: java -jar target/benchmarks.jar SortAlgorithmBenchmark -p criteria=Size
+ * 10M rows: java -jar target/benchmarks.jar SortAlgorithmBenchmark -p size=10000000 -jvmArgsAppend "-Xms12g -Xmx12g"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SortAlgorithmBenchmark {
+
+    @Param({"Merge Sort", "Quick Sort", "Heap Sort", "Counting Sort", "Radix Sort", "Bucket Sort"})
+    public String algorithm;
+
+    @Param({"Name", "Size", "Creation Date", "Last Modified", "Type"})
+    public String criteria;
+
+    @Param({"true", "false"})
+    public boolean ascending;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "DUPLICATES"})
+    public SyntheticFiles.Distribution distribution;
+
+    private FileOrganizer organizer;
+    private List<FileInfo> files;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        organizer = new FileOrganizer();
+        files = SyntheticFiles.generate(size, distribution, criteria, 42);
+    }
+
+    @Benchmark
+    public List<FileInfo> sort() {
+        List<FileInfo> copy = new ArrayList<>(files);
+        organizer.sortFilesWithAlgorithm(copy, criteria, ascending, algorithm);
+        return copy;
+    }
+}
@@ -0,0 +1,85 @@
+package com.sortify;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible in-memory FileInfo lists for the sorting benchmarks.
+ * Names, extensions and sizes follow what a typical Downloads folder looks like. Sizes
+ * stay below 16 MB, so Counting Sort's range table still fits on the benchmark heap.
+ * Sorting never reads the path, so it is left null to keep 10M-entry lists affordable.
+ */
+final class SyntheticFiles {
+
+    enum Distribution { RANDOM, SORTED, REVERSED, DUPLICATES }
+
+    private static final String[] WORDS = {
+        "report", "invoice", "IMG", "photo", "notes", "assignment", "budget", "resume",
+        "main", "backup", "song", "video", "draft", "lecture", "screenshot", "contract"
+    };
+    private static final String[] EXTENSIONS = {
+        "pdf", "docx", "txt", "jpg", "png", "mp3", "mp4", "zip", "java", "py", "xlsx", "pptx", "csv", "json"
+    };
+    private static final int MAX_SIZE = 16 * 1024 * 1024;
+    private static final long EPOCH_START = LocalDateTime.of(2019, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long EPOCH_SPAN = 5L * 365 * 24 * 3600;
+    private static final int DUPLICATE_POOL = 16;
+
+    private SyntheticFiles() {
+    }
+
+    /**
+     * @param criteria sort criterion that SORTED and REVERSED are ordered by
+     */
+    static List<FileInfo> generate(int count, Distribution distribution, String criteria, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<FileInfo> files = new ArrayList<>(count);
+        if (distribution == Distribution.DUPLICATES) {
+            // Every attribute is drawn from a handful of values, so most comparisons tie
+            List<FileInfo> pool = new ArrayList<>(DUPLICATE_POOL);
+            for (int i = 0; i < DUPLICATE_POOL; i++) {
+                pool.add(randomFile(random));
+            }
+            for (int i = 0; i < count; i++) {
+                FileInfo template = pool.get(random.nextInt(DUPLICATE_POOL));
+                files.add(new FileInfo(null, template.getName(), template.getSize(), template.getExtension(),
+                    template.getCreationDate(), template.getLastModifiedDate()));
+            }
+            return files;
+        }
+        for (int i = 0; i < count; i++) {
+            files.add(randomFile(random));
+        }
+        if (distribution == Distribution.SORTED) {
+            files.sort(comparator(criteria));
+        } else if (distribution == Distribution.REVERSED) {
+            files.sort(comparator(criteria).reversed());
+        }
+        return files;
+    }
+
+    private static FileInfo randomFile(SplittableRandom random) {
+        String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+        String name = WORDS[random.nextInt(WORDS.length)] + "_" + random.nextInt(1_000_000) + "." + extension;
+        // Log-uniform sizes: many small files, a few large ones
+        long size = (long) Math.pow(MAX_SIZE, random.nextDouble());
+        LocalDateTime created = LocalDateTime.ofEpochSecond(EPOCH_START + random.nextLong(EPOCH_SPAN),
+            random.nextInt(1_000_000_000), ZoneOffset.UTC);
+        LocalDateTime modified = created.plusSeconds(random.nextLong(EPOCH_SPAN / 5));
+        return new FileInfo(null, name, size, extension, created, modified);
+    }
+
+    private static Comparator<FileInfo> comparator(String criteria) {
+        return switch (criteria) {
+            case "Size" -> Comparator.comparingLong(FileInfo::getSize);
+            case "Creation Date" -> Comparator.comparing(FileInfo::getCreationDate);
+            case "Last Modified" -> Comparator.comparing(FileInfo::getLastModifiedDate);
+            case "Type" -> Comparator.comparing(FileInfo::getExtension);
+            default -> Comparator.comparing(FileInfo::getName);
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible directory tree for the scan, duplicate and organize benchmarks.
+ * Every directory holds {@code filesPerDirectory} files and, above the leaf level,
+ * {@code fanOut} subdirectories. Sizes are log-uniform up to {@code maxFileSize}. A
+ * {@code duplicateRatio} share of the files are byte-for-byte copies of earlier ones.
+ * The same seed always produces the same names, sizes and contents.
+ */
+final class SyntheticTree {
+
+    private static final String[] WORDS = {
+        "report", "invoice", "IMG", "photo", "notes", "assignment", "budget", "resume",
+        "main", "backup", "song", "video", "draft", "lecture", "screenshot", "contract"
+    };
+    private static final String[] EXTENSIONS = {
+        "pdf", "docx", "txt", "jpg", "png", "mp3", "mp4", "zip", "java", "py", "xlsx", "csv"
+    };
+
+    private final int depth;
+    private final int fanOut;
+    private final int filesPerDirectory;
+    private final int maxFileSize;
+    private final double duplicateRatio;
+    private final long seed;
+
+    private int fileCount;
+    private long byteCount;
+    private int duplicateCount;
+
+    SyntheticTree(int depth, int fanOut, int filesPerDirectory, int maxFileSize, double duplicateRatio, long seed) {
+        this.depth = depth;
+        this.fanOut = fanOut;
+        this.filesPerDirectory = filesPerDirectory;
+        this.maxFileSize = maxFileSize;
+        this.duplicateRatio = duplicateRatio;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the tree under {@code root}, which is created if needed.
+     */
+    void write(Path root) throws IOException {
+        fileCount = 0;
+        byteCount = 0;
+        duplicateCount = 0;
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Path> originals = new ArrayList<>();
+        writeDirectory(root, depth, random, originals, new byte[maxFileSize]);
+    }
+
+    private void writeDirectory(Path directory, int level, SplittableRandom random, List<Path> originals, byte[] buffer) throws IOException {
+        Files.createDirectories(directory);
+        for (int i = 0; i < filesPerDirectory; i++) {
+            String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            Path file = directory.resolve(WORDS[random.nextInt(WORDS.length)] + "_" + fileCount + "." + extension);
+            if (!originals.isEmpty() && random.nextDouble() < duplicateRatio) {
+                Files.copy(originals.get(random.nextInt(originals.size())), file);
+                duplicateCount++;
+            } else {
+                int size = (int) Math.pow(maxFileSize, random.nextDouble());
+                for (int b = 0; b < size; b += 8) {
+                    long bits = random.nextLong();
+                    for (int k = 0; k < 8 && b + k < size; k++) {
+                        buffer[b + k] = (byte) (bits >>> (k * 8));
+                    }
+                }
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    out.write(buffer, 0, size);
+                }
+                originals.add(file);
+            }
+            fileCount++;
+            byteCount += Files.size(file);
+        }
+        if (level > 0) {
+            for (int d = 0; d < fanOut; d++) {
+                writeDirectory(directory.resolve("dir" + d), level - 1, random, originals, buffer);
+            }
+        }
+    }
+
+    int getFileCount() { return fileCount; }
+    long getByteCount() { return byteCount; }
+    int getDuplicateCount() { return duplicateCount; }
+
+    /**
+     * Removes a tree written by {@link #write}, or any other directory, recursively.
+     */
+    static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth=%d fanOut=%d filesPerDirectory=%d maxFileSize=%d duplicateRatio=%.2f: %d files, %.1f MB, %d duplicates",
+            depth, fanOut, filesPerDirectory, maxFileSize, duplicateRatio, fileCount, byteCount / (1024.0 * 1024.0), duplicateCount);
+    }
+}
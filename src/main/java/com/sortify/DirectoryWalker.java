@@ -0,0 +1,194 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Work-stealing directory walker used by scanDirectory.
+ * Every subdirectory, and every large slice of a wide directory, becomes a fork-join task.
+ * Each entry costs a single attribute read, which also answers the hidden-file question.
+ * Entries are visited in name order and results are joined in that order, so the output
+ * is the same depth-first listing on every run regardless of thread timing.
+ * In streaming mode files are pushed to a sink as soon as they are visited instead.
+ * The walker can also record the modification time of every folder it walks, read before
+ * the folder is listed, so a later change to the listing always shows up as a newer time.
+ */
+class DirectoryWalker {
+
+    private static final int ENTRY_SPLIT_THRESHOLD = 512;
+    private static final Comparator<Path> BY_NAME = Comparator.comparing(path -> path.getFileName().toString());
+
+    private final int parallelism;
+    private final boolean includeSubfolders;
+    private final boolean includeHidden;
+    private final BiFunction<Path, BasicFileAttributes, FileInfo> mapper;
+    private final Class<? extends BasicFileAttributes> attributeType;
+    private Consumer<FileInfo> sink;
+    private Map<Path, Long> directoryTimes;
+
+    DirectoryWalker(int parallelism, boolean includeSubfolders, boolean includeHidden,
+                    BiFunction<Path, BasicFileAttributes, FileInfo> mapper) {
+        this.parallelism = parallelism;
+        this.includeSubfolders = includeSubfolders;
+        this.includeHidden = includeHidden;
+        this.mapper = mapper;
+        this.attributeType = attributeType();
+    }
+
+    /**
+     * Attribute type to read per entry. DOS-style file systems keep the hidden flag in the
+     * attributes; elsewhere it is the leading dot.
+     */
+    static Class<? extends BasicFileAttributes> attributeType() {
+        Set<String> views = FileSystems.getDefault().supportedFileAttributeViews();
+        return views.contains("dos") && !views.contains("posix") ? DosFileAttributes.class : BasicFileAttributes.class;
+    }
+
+    /**
+     * Records folder path → modification time (epoch nanos) for the following walks,
+     * empty folders included. The map must be thread-safe.
+     */
+    void recordDirectoryTimes(Map<Path, Long> directoryTimes) {
+        this.directoryTimes = directoryTimes;
+    }
+
+    List<FileInfo> walk(Path root) throws IOException {
+        return run(root, null);
+    }
+
+    /**
+     * Streams every visited file to the sink, in no particular order. The sink must be thread-safe.
+     */
+    void walk(Path root, Consumer<FileInfo> sink) throws IOException {
+        run(root, sink);
+    }
+
+    private List<FileInfo> run(Path root, Consumer<FileInfo> sink) throws IOException {
+        this.sink = sink;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long modified = directoryTimes == null ? 0
+                : Files.getLastModifiedTime(root, LinkOption.NOFOLLOW_LINKS).to(TimeUnit.NANOSECONDS);
+            return pool.invoke(new DirectoryTask(root, modified));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static boolean isHidden(Path entry, BasicFileAttributes attrs) {
+        if (attrs instanceof DosFileAttributes) {
+            return ((DosFileAttributes) attrs).isHidden();
+        }
+        return entry.getFileName().toString().startsWith(".");
+    }
+
+    @SuppressWarnings("serial")
+    private final class DirectoryTask extends RecursiveTask<List<FileInfo>> {
+        private final Path directory;
+        private final long modified;
+
+        DirectoryTask(Path directory, long modified) {
+            this.directory = directory;
+            this.modified = modified;
+        }
+
+        @Override
+        protected List<FileInfo> compute() {
+            if (directoryTimes != null) directoryTimes.put(directory, modified);
+            List<Path> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    entries.add(entry);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.sort(BY_NAME);
+            return new EntriesTask(entries, 0, entries.size()).compute();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class EntriesTask extends RecursiveTask<List<FileInfo>> {
+        private final List<Path> entries;
+        private final int from;
+        private final int to;
+
+        EntriesTask(List<Path> entries, int from, int to) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<FileInfo> compute() {
+            if (to - from > ENTRY_SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                EntriesTask right = new EntriesTask(entries, mid, to);
+                right.fork();
+                List<FileInfo> files = new EntriesTask(entries, from, mid).compute();
+                files.addAll(right.join());
+                return files;
+            }
+
+            // Slots hold either a visited file or a forked subdirectory, joined back in name order
+            List<Object> slots = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Path entry = entries.get(i);
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, attributeType, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isSymbolicLink()) {
+                        // Links are listed like their target file but never descended into
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                        if (!attrs.isRegularFile()) continue;
+                    }
+                } catch (NoSuchFileException e) {
+                    continue; // removed or dangling while we were walking
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (attrs.isDirectory()) {
+                    if (includeSubfolders) {
+                        // The time read here comes before the child is listed
+                        DirectoryTask task = new DirectoryTask(entry, attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+                        task.fork();
+                        slots.add(task);
+                    }
+                } else if (attrs.isRegularFile() && (includeHidden || !isHidden(entry, attrs))) {
+                    FileInfo file = mapper.apply(entry, attrs);
+                    if (sink != null) {
+                        sink.accept(file);
+                    } else {
+                        slots.add(file);
+                    }
+                }
+            }
+
+            List<FileInfo> files = new ArrayList<>();
+            for (Object slot : slots) {
+                if (slot instanceof DirectoryTask) {
+                    files.addAll(((DirectoryTask) slot).join());
+                } else {
+                    files.add((FileInfo) slot);
+                }
+            }
+            return files;
+        }
+    }
+}
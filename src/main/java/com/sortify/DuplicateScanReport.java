@@ -0,0 +1,48 @@
+package com.sortify;
+
+/**
+ * Candidate counts for each stage of the duplicate filter
+ * (size → head/tail sample → full hash).
+ */
+public class DuplicateScanReport {
+    private int filesScanned;
+    private int sizeCandidates;
+    private int sampleCandidates;
+    private int duplicateFiles;
+    private int duplicateGroups;
+    private long bytesHashed;
+    private int cacheHits;
+
+    public int getFilesScanned() { return filesScanned; }
+    void setFilesScanned(int filesScanned) { this.filesScanned = filesScanned; }
+
+    public int getSizeCandidates() { return sizeCandidates; }
+    void setSizeCandidates(int sizeCandidates) { this.sizeCandidates = sizeCandidates; }
+
+    public int getSampleCandidates() { return sampleCandidates; }
+    void setSampleCandidates(int sampleCandidates) { this.sampleCandidates = sampleCandidates; }
+
+    public int getDuplicateFiles() { return duplicateFiles; }
+    void setDuplicateFiles(int duplicateFiles) { this.duplicateFiles = duplicateFiles; }
+
+    public int getDuplicateGroups() { return duplicateGroups; }
+    void setDuplicateGroups(int duplicateGroups) { this.duplicateGroups = duplicateGroups; }
+
+    public long getBytesHashed() { return bytesHashed; }
+    void setBytesHashed(long bytesHashed) { this.bytesHashed = bytesHashed; }
+
+    public int getCacheHits() { return cacheHits; }
+    void setCacheHits(int cacheHits) { this.cacheHits = cacheHits; }
+
+    public int getEliminatedBySize() { return filesScanned - sizeCandidates; }
+    public int getEliminatedBySample() { return sizeCandidates - sampleCandidates; }
+    public int getEliminatedByFullHash() { return sampleCandidates - duplicateFiles; }
+
+    @Override
+    public String toString() {
+        return String.format("Duplicate scan: %d files, size stage eliminated %d, sample stage eliminated %d, "
+                + "full hash eliminated %d, %d duplicates in %d groups (%.2f MB read, %d cached hashes reused)",
+            filesScanned, getEliminatedBySize(), getEliminatedBySample(), getEliminatedByFullHash(),
+            duplicateFiles, duplicateGroups, bytesHashed / (1024.0 * 1024.0), cacheHits);
+    }
+}
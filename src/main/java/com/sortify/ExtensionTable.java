@@ -0,0 +1,84 @@
+package com.sortify;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable extension → category table for the extension-based fallback stage.
+ * Open addressing with linear probing, at most half full. Lookups fold case while
+ * hashing and comparing, so an extension is never copied or lower-cased to look it up.
+ */
+final class ExtensionTable {
+
+    private final String[] keys;
+    private final String[] values;
+    private final int mask;
+
+    ExtensionTable(Map<String, String> mappings) {
+        int capacity = Integer.highestOneBit(Math.max(4, mappings.size() * 2 - 1)) << 1;
+        keys = new String[capacity];
+        values = new String[capacity];
+        mask = capacity - 1;
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            put(mapping.getKey(), mapping.getValue());
+        }
+    }
+
+    /**
+     * Built-in mappings; the stage's original lists, in their original order.
+     */
+    static Map<String, String> defaultMappings() {
+        Map<String, String> mappings = new LinkedHashMap<>();
+        putAll(mappings, "General/Documents", "pdf", "doc", "docx", "ppt", "pptx", "xls", "xlsx", "txt", "rtf");
+        putAll(mappings, "General/Images", "jpg", "jpeg", "png", "gif", "bmp", "tiff", "svg", "webp");
+        putAll(mappings, "General/Videos", "mp4", "avi", "mkv", "mov", "wmv", "flv", "webm");
+        putAll(mappings, "General/Audio", "mp3", "wav", "flac", "aac", "ogg", "wma");
+        putAll(mappings, "General/Archives", "zip", "rar", "7z", "tar", "gz", "bz2");
+        putAll(mappings, "General/Code", "java", "py", "cpp", "c", "cs", "js", "html", "css", "php", "sql", "xml", "json");
+        putAll(mappings, "General/Executables", "exe", "msi", "dmg", "pkg", "deb", "rpm");
+        return mappings;
+    }
+
+    private static void putAll(Map<String, String> mappings, String category, String... extensions) {
+        for (String extension : extensions) {
+            mappings.put(extension, category);
+        }
+    }
+
+    /**
+     * Category for the extension (case-insensitive), or null when it is not mapped.
+     */
+    String lookup(String extension) {
+        for (int slot = hash(extension) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (equalsFolded(keys[slot], extension)) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    private void put(String extension, String category) {
+        int slot = hash(extension) & mask;
+        while (keys[slot] != null && !equalsFolded(keys[slot], extension)) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = extension;
+        values[slot] = category;
+    }
+
+    private static int hash(String extension) {
+        int h = 0;
+        for (int i = 0; i < extension.length(); i++) {
+            h = 31 * h + Character.toLowerCase(extension.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equalsFolded(String a, String b) {
+        if (a.length() != b.length()) return false;
+        for (int i = 0; i < a.length(); i++) {
+            if (Character.toLowerCase(a.charAt(i)) != Character.toLowerCase(b.charAt(i))) return false;
+        }
+        return true;
+    }
+}
@@ -9,7 +9,9 @@ public class FileInfo {
     private long size;
     private String extension;
     private LocalDateTime creationDate;
+    private long creationNanos = Long.MIN_VALUE; // epoch nanoseconds from the file system, when known
     private LocalDateTime lastModifiedDate;
+    private long lastModifiedNanos = Long.MIN_VALUE; // epoch nanoseconds from the file system, when known
     private String hash;
     private String category;
     private String action;
@@ -39,9 +41,15 @@ public class FileInfo {
     public LocalDateTime getCreationDate() { return creationDate; }
     public void setCreationDate(LocalDateTime creationDate) { this.creationDate = creationDate; }
 
+    public long getCreationNanos() { return creationNanos; }
+    public void setCreationNanos(long creationNanos) { this.creationNanos = creationNanos; }
+
     public LocalDateTime getLastModifiedDate() { return lastModifiedDate; }
     public void setLastModifiedDate(LocalDateTime lastModifiedDate) { this.lastModifiedDate = lastModifiedDate; }
 
+    public long getLastModifiedNanos() { return lastModifiedNanos; }
+    public void setLastModifiedNanos(long lastModifiedNanos) { this.lastModifiedNanos = lastModifiedNanos; }
+
     public String getHash() { return hash; }
     public void setHash(String hash) { this.hash = hash; }
 
@@ -0,0 +1,1131 @@
+package com.sortify;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Column-oriented store of a scanned file listing. The scan pipeline, the saved workspace
+ * and the live index all write into it; FileInfo objects only exist as short-lived views
+ * for the tables, so a large tree costs its columns rather than an object per file.
+ * Each attribute lives in its own primitive array indexed by row:
+ * <ul>
+ * <li>sizes and timestamps are longs (epoch nanoseconds, as the file system reports them);</li>
+ * <li>extensions, categories and actions are ids into small interned tables;</li>
+ * <li>paths are a parent-directory id plus the file name, packed into one byte pool
+ *     (one byte per char when the name fits in Latin-1, two otherwise);</li>
+ * <li>digests are 32 raw bytes per row.</li>
+ * </ul>
+ * That is under 100 bytes per file plus its name, against several hundred for a FileInfo.
+ * Every row carries a key, fixed when it is added, that survives sorts and removals;
+ * indexes built over the inventory (see SearchIndex) refer to rows by key.
+ * {@link #asList()} exposes the rows as FileInfo views for the tables and the rest of the
+ * pipeline. A view is bound to its row's key, so it follows its file through sorts, and
+ * reads as empty once the row is removed. Views read and write the columns under the
+ * inventory's lock and are equal when they name the same row.
+ * Sorting, filtering, path lookup and the size and digest stages of duplicate detection
+ * run on the columns themselves. Methods taking a row index are not synchronized: callers
+ * that share the inventory hold its lock across reading a row number and using it.
+ */
+public class FileInventory {
+
+    static final int DIGEST_LENGTH = 32;
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final int FREE = 0;
+    private static final int DELETED = -1;
+
+    private int count;
+    private int[] directory;
+    private int[] nameOffset;
+    private int[] nameLength; // chars; negative when the name is stored as UTF-16
+    private byte[] namePool;
+    private int namePoolSize;
+    private int staleNameBytes; // left behind by renamed and removed rows
+    private long[] size;
+    private long[] createdNanos;
+    private long[] modifiedNanos;
+    private int[] extension;
+    private int[] category;
+    private int[] action;
+    private byte[] digests;
+    private final BitSet hasDigest = new BitSet();
+    private Path[] rawPath; // only for names that don't survive a round trip through String
+    private int[] key;
+    private int nextKey;
+    private int[] rowOfKey; // inverse of key, rebuilt on demand after a reorder
+    private int[] pathTable; // open-addressed path → key + 1, built on the first find()
+    private int pathTableUsed; // live plus deleted slots
+
+    private final List<Path> directories = new ArrayList<>();
+    private final Map<Path, Integer> directoryIds = new HashMap<>();
+    private final Interner extensions = new Interner();
+    private final Interner categories = new Interner();
+    private final Interner actions = new Interner();
+
+    public FileInventory() {
+        this(1024);
+    }
+
+    public FileInventory(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        directory = new int[capacity];
+        nameOffset = new int[capacity];
+        nameLength = new int[capacity];
+        namePool = new byte[capacity * 16];
+        size = new long[capacity];
+        createdNanos = new long[capacity];
+        modifiedNanos = new long[capacity];
+        extension = new int[capacity];
+        category = new int[capacity];
+        action = new int[capacity];
+        digests = new byte[capacity * DIGEST_LENGTH];
+        key = new int[capacity];
+    }
+
+    public static FileInventory of(Collection<FileInfo> files) {
+        FileInventory inventory = new FileInventory(files.size());
+        inventory.addAll(files);
+        return inventory;
+    }
+
+    /**
+     * Appends a copy of the file's attributes and returns its row.
+     */
+    public synchronized int add(FileInfo file) {
+        int row = append();
+        store(row, file);
+        index(row);
+        return row;
+    }
+
+    /**
+     * Appends copies of the files and returns views of their rows.
+     */
+    public synchronized List<FileInfo> addAll(Collection<FileInfo> files) {
+        int first = count;
+        for (FileInfo file : files) {
+            add(file);
+        }
+        return new Rows(Arrays.copyOfRange(key, first, count));
+    }
+
+    /**
+     * Appends a row from raw column values, as read back from a saved workspace.
+     */
+    synchronized int add(Path path, long fileSize, long created, long modified) {
+        int row = append();
+        String name = path.getFileName().toString();
+        storePath(row, path, name);
+        size[row] = fileSize;
+        createdNanos[row] = created;
+        modifiedNanos[row] = modified;
+        extension[row] = extensions.id(FileOrganizer.getExtension(name));
+        category[row] = -1;
+        action[row] = -1;
+        hasDigest.clear(row);
+        index(row);
+        return row;
+    }
+
+    /**
+     * Overwrites a row with the file's attributes, e.g. after the file was moved or changed.
+     */
+    public synchronized void set(int row, FileInfo file) {
+        unindex(row);
+        store(row, file);
+        index(row);
+    }
+
+    /**
+     * Drops the given rows; the remaining rows keep their order and their keys.
+     */
+    public synchronized void remove(int[] rows) {
+        BitSet dropped = new BitSet(count);
+        for (int row : rows) {
+            dropped.set(row);
+        }
+        int[] order = new int[count - dropped.cardinality()];
+        int kept = 0;
+        for (int row = dropped.nextClearBit(0); row < count; row = dropped.nextClearBit(row + 1)) {
+            order[kept++] = row;
+        }
+        for (int row = dropped.nextSetBit(0); row >= 0 && row < count; row = dropped.nextSetBit(row + 1)) {
+            staleNameBytes += nameBytes(row);
+            unindex(row);
+        }
+        count = kept;
+        permute(order);
+    }
+
+    /**
+     * Drops the rows of the given views; views of other inventories and of rows that are
+     * already gone are ignored.
+     */
+    public synchronized void removeAll(Collection<FileInfo> views) {
+        int[] rows = new int[views.size()];
+        int found = 0;
+        for (FileInfo view : views) {
+            int row = rowOf(view);
+            if (row >= 0) rows[found++] = row;
+        }
+        if (found > 0) remove(Arrays.copyOf(rows, found));
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int getKey(int row) {
+        return key[row];
+    }
+
+    /**
+     * Current row of a key, or -1 once it has been removed.
+     */
+    public synchronized int rowOfKey(int rowKey) {
+        if (rowOfKey == null) {
+            rowOfKey = new int[Math.max(16, nextKey)];
+            Arrays.fill(rowOfKey, -1);
+            for (int row = 0; row < count; row++) {
+                rowOfKey[key[row]] = row;
+            }
+        }
+        return rowKey >= 0 && rowKey < rowOfKey.length ? rowOfKey[rowKey] : -1;
+    }
+
+    // Column access
+
+    public String getName(int row) {
+        int offset = nameOffset[row];
+        int length = nameLength[row];
+        char[] chars = new char[Math.abs(length)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = charAt(offset, length, i);
+        }
+        return new String(chars);
+    }
+
+    public Path getPath(int row) {
+        if (rawPath != null && rawPath[row] != null) return rawPath[row];
+        int dir = directory[row];
+        if (dir < 0) return null;
+        Path parent = directories.get(dir);
+        String name = getName(row);
+        return parent != null ? parent.resolve(name) : Path.of(name);
+    }
+
+    /**
+     * Folder holding the row's file; null for a bare name.
+     */
+    public Path getDirectory(int row) {
+        return directory[row] < 0 ? null : directories.get(directory[row]);
+    }
+
+    int getDirectoryId(int row) {
+        return directory[row];
+    }
+
+    Path getDirectoryPath(int directoryId) {
+        return directories.get(directoryId);
+    }
+
+    int directoryCount() {
+        return directories.size();
+    }
+
+    public long getSize(int row) {
+        return size[row];
+    }
+
+    public LocalDateTime getCreationDate(int row) {
+        return toTime(createdNanos[row]);
+    }
+
+    public LocalDateTime getLastModifiedDate(int row) {
+        return toTime(modifiedNanos[row]);
+    }
+
+    /**
+     * Creation time in epoch nanoseconds, or {@link #NO_TIME}.
+     */
+    long getCreatedNanos(int row) {
+        return createdNanos[row];
+    }
+
+    /**
+     * Modification time in epoch nanoseconds as the file system reported it, or {@link #NO_TIME}.
+     */
+    long getModifiedNanos(int row) {
+        return modifiedNanos[row];
+    }
+
+    /**
+     * Takes a changed file's new size and times. Different rows may be updated in parallel;
+     * the digest is left for the caller to clear.
+     */
+    void update(int row, long fileSize, long created, long modified) {
+        size[row] = fileSize;
+        createdNanos[row] = created;
+        modifiedNanos[row] = modified;
+    }
+
+    public String getExtension(int row) {
+        return extensions.value(extension[row]);
+    }
+
+    public String getCategory(int row) {
+        return categories.value(category[row]);
+    }
+
+    public void setCategory(int row, String value) {
+        category[row] = categories.id(value);
+    }
+
+    public String getAction(int row) {
+        return actions.value(action[row]);
+    }
+
+    public void setAction(int row, String value) {
+        action[row] = actions.id(value);
+    }
+
+    public String getHash(int row) {
+        if (!hasDigest.get(row)) return null;
+        return HashEngine.toHex(Arrays.copyOfRange(digests, row * DIGEST_LENGTH, (row + 1) * DIGEST_LENGTH));
+    }
+
+    /**
+     * Stores a SHA-256 hex digest as raw bytes; null clears it.
+     */
+    public void setHash(int row, String hex) {
+        if (hex == null || hex.length() != DIGEST_LENGTH * 2) {
+            hasDigest.clear(row);
+            return;
+        }
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            digests[row * DIGEST_LENGTH + i] = (byte) Integer.parseInt(hex, i * 2, i * 2 + 2, 16);
+        }
+        hasDigest.set(row);
+    }
+
+    /**
+     * Copies the row's raw digest into {@code out}.
+     *
+     * @return false, leaving {@code out} untouched, when the row has none
+     */
+    boolean getDigest(int row, byte[] out) {
+        if (!hasDigest.get(row)) return false;
+        System.arraycopy(digests, row * DIGEST_LENGTH, out, 0, DIGEST_LENGTH);
+        return true;
+    }
+
+    void setDigest(int row, byte[] digest) {
+        System.arraycopy(digest, 0, digests, row * DIGEST_LENGTH, DIGEST_LENGTH);
+        hasDigest.set(row);
+    }
+
+    // Views
+
+    /**
+     * All rows, in their current order, as FileInfo views; setters on a view write its row.
+     * The list is fixed when it is created: rows added later are not in it, and the views of
+     * rows removed later read as empty.
+     */
+    public synchronized List<FileInfo> asList() {
+        return new Rows(Arrays.copyOf(key, count));
+    }
+
+    /**
+     * The given rows as FileInfo views, e.g. the result of {@link #filter}.
+     */
+    public synchronized List<FileInfo> asList(int[] rows) {
+        int[] keys = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = key[rows[i]];
+        }
+        return new Rows(keys);
+    }
+
+    /**
+     * Views of the rows with the given keys, in current row order, skipping removed keys.
+     */
+    public synchronized List<FileInfo> asListByKeys(int[] keys) {
+        int[] rows = new int[keys.length];
+        int found = 0;
+        for (int rowKey : keys) {
+            int row = rowOfKey(rowKey);
+            if (row >= 0) rows[found++] = row;
+        }
+        rows = Arrays.copyOf(rows, found);
+        Arrays.sort(rows);
+        return asList(rows);
+    }
+
+    public synchronized FileInfo view(int row) {
+        Objects.checkIndex(row, count);
+        return new Row(key[row]);
+    }
+
+    /**
+     * Current row of a view created by this inventory, or -1 for any other FileInfo and for
+     * a view whose row has been removed.
+     */
+    public synchronized int rowOf(FileInfo file) {
+        int rowKey = keyOf(file);
+        return rowKey < 0 ? -1 : rowOfKey(rowKey);
+    }
+
+    /**
+     * Key of a view created by this inventory, even once its row is removed; -1 for any
+     * other FileInfo.
+     */
+    public int keyOf(FileInfo file) {
+        return file instanceof Row && ((Row) file).owner() == this ? ((Row) file).rowKey : -1;
+    }
+
+    private synchronized <T> T read(int rowKey, IntFunction<T> getter) {
+        int row = rowOfKey(rowKey);
+        return row < 0 ? null : getter.apply(row);
+    }
+
+    private synchronized long readLong(int rowKey, IntToLongFunction getter, long absent) {
+        int row = rowOfKey(rowKey);
+        return row < 0 ? absent : getter.applyAsLong(row);
+    }
+
+    private synchronized void write(int rowKey, IntConsumer setter) {
+        int row = rowOfKey(rowKey);
+        if (row >= 0) setter.accept(row);
+    }
+
+    private final class Rows extends AbstractList<FileInfo> implements RandomAccess {
+        private final int[] keys;
+
+        Rows(int[] keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public FileInfo get(int index) {
+            return new Row(keys[index]);
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+    }
+
+    /**
+     * FileInfo backed by one row; the inherited fields stay empty.
+     */
+    private final class Row extends FileInfo {
+        private final int rowKey;
+
+        Row(int rowKey) {
+            super(null, null, 0, null, null, null);
+            this.rowKey = rowKey;
+        }
+
+        FileInventory owner() { return FileInventory.this; }
+
+        @Override public Path getPath() { return read(rowKey, FileInventory.this::getPath); }
+        @Override public void setPath(Path path) {
+            write(rowKey, row -> movePath(row, path, path != null ? path.getFileName().toString() : FileInventory.this.getName(row)));
+        }
+        @Override public String getName() { return read(rowKey, FileInventory.this::getName); }
+        @Override public void setName(String name) {
+            write(rowKey, row -> movePath(row, FileInventory.this.getPath(row), name));
+        }
+        @Override public long getSize() { return readLong(rowKey, row -> size[row], 0); }
+        @Override public void setSize(long value) { write(rowKey, row -> size[row] = value); }
+        @Override public String getExtension() { return read(rowKey, FileInventory.this::getExtension); }
+        @Override public void setExtension(String value) { write(rowKey, row -> extension[row] = extensions.id(value)); }
+        @Override public LocalDateTime getCreationDate() { return read(rowKey, FileInventory.this::getCreationDate); }
+        @Override public void setCreationDate(LocalDateTime value) { write(rowKey, row -> createdNanos[row] = toNanos(value)); }
+        @Override public long getCreationNanos() { return readLong(rowKey, row -> createdNanos[row], NO_TIME); }
+        @Override public void setCreationNanos(long value) { write(rowKey, row -> createdNanos[row] = value); }
+        @Override public LocalDateTime getLastModifiedDate() { return read(rowKey, FileInventory.this::getLastModifiedDate); }
+        @Override public void setLastModifiedDate(LocalDateTime value) { write(rowKey, row -> modifiedNanos[row] = toNanos(value)); }
+        @Override public long getLastModifiedNanos() { return readLong(rowKey, row -> modifiedNanos[row], NO_TIME); }
+        @Override public void setLastModifiedNanos(long value) { write(rowKey, row -> modifiedNanos[row] = value); }
+        @Override public String getHash() { return read(rowKey, FileInventory.this::getHash); }
+        @Override public void setHash(String value) { write(rowKey, row -> FileInventory.this.setHash(row, value)); }
+        @Override public String getCategory() { return read(rowKey, FileInventory.this::getCategory); }
+        @Override public void setCategory(String value) { write(rowKey, row -> FileInventory.this.setCategory(row, value)); }
+        @Override public String getAction() { return read(rowKey, FileInventory.this::getAction); }
+        @Override public void setAction(String value) { write(rowKey, row -> FileInventory.this.setAction(row, value)); }
+        @Override public String getSizeKB() { return String.format("%.2f", getSize() / 1024.0); }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Row && ((Row) other).owner() == owner() && ((Row) other).rowKey == rowKey;
+        }
+
+        @Override
+        public int hashCode() {
+            return rowKey;
+        }
+    }
+
+    // Sorting and filtering on the columns
+
+    /**
+     * Reorders the rows by one of the sort criteria, stably, exactly like sorting the
+     * FileInfo list with the matching comparator. Size and dates use the LSD radix sort on
+     * their columns, Type sorts the interned extension ranks, and Name merge-sorts row
+     * indices comparing the packed names in place.
+     *
+     * @return the algorithm that was used
+     */
+    public synchronized String sort(String criteria, boolean ascending) {
+        int[] order = switch (criteria) {
+            case "Size" -> LongRadixSort.order(Arrays.copyOf(size, count), ascending);
+            case "Creation Date" -> LongRadixSort.order(localTimes(createdNanos), ascending);
+            case "Last Modified" -> LongRadixSort.order(localTimes(modifiedNanos), ascending);
+            case "Type" -> LongRadixSort.order(ranked(extension, extensions), ascending);
+            default -> nameOrder(ascending);
+        };
+        permute(order);
+        return switch (criteria) {
+            case "Size", "Creation Date", "Last Modified" -> "Radix Sort (LSD, column)";
+            case "Type" -> "Radix Sort (LSD, extension ranks)";
+            default -> "Merge Sort (packed names)";
+        };
+    }
+
+    /**
+     * Moves the rows of the given views to the front, in list order, e.g. after sorting a
+     * copy of some of the views with one of the list-based algorithms. The other rows follow
+     * in their current order; views of rows removed meanwhile are skipped.
+     */
+    public synchronized void reorder(List<FileInfo> views) {
+        int[] order = new int[count];
+        BitSet placed = new BitSet(count);
+        int i = 0;
+        for (FileInfo view : views) {
+            if (keyOf(view) < 0) throw new IllegalArgumentException("Not a row of this inventory");
+            int row = rowOf(view);
+            if (row < 0 || placed.get(row)) continue;
+            placed.set(row);
+            order[i++] = row;
+        }
+        for (int row = placed.nextClearBit(0); row < count; row = placed.nextClearBit(row + 1)) {
+            order[i++] = row;
+        }
+        permute(order);
+    }
+
+    /**
+     * Reorders the rows by directory, then name, which gives a stable order for scan results.
+     */
+    public synchronized void sortByLocation() {
+        permute(nameOrder(true));
+        long[] keys = new long[count];
+        int[] rank = directoryRanks();
+        for (int i = 0; i < count; i++) {
+            keys[i] = directory[i] < 0 ? -1 : rank[directory[i]];
+        }
+        permute(LongRadixSort.order(keys, true));
+    }
+
+    /**
+     * Rows whose extension matches {@code type} (ignoring case; null matches all) and whose
+     * size lies in {@code [minSize, maxSize]}. The extension test is resolved once per
+     * distinct extension, not once per row.
+     */
+    public int[] filter(String type, long minSize, long maxSize) {
+        return filter(null, type, minSize, maxSize);
+    }
+
+    /**
+     * Like {@link #filter(String, long, long)}, limited to one category; null matches all.
+     */
+    public synchronized int[] filter(String categoryName, String type, long minSize, long maxSize) {
+        boolean[] typeMatches = new boolean[extensions.size()];
+        for (int id = 0; id < typeMatches.length; id++) {
+            typeMatches[id] = type == null || type.equalsIgnoreCase(extensions.value(id));
+        }
+        int wanted = categoryName == null ? -1 : categories.find(categoryName);
+        if (categoryName != null && wanted < 0) return new int[0];
+        return filter(row -> {
+            int ext = extension[row];
+            boolean matchesType = ext >= 0 ? typeMatches[ext] : type == null;
+            return matchesType && (wanted < 0 || category[row] == wanted)
+                && size[row] >= minSize && size[row] <= maxSize;
+        });
+    }
+
+    public synchronized int[] filter(IntPredicate predicate) {
+        int[] rows = new int[count];
+        int matched = 0;
+        for (int row = 0; row < count; row++) {
+            if (predicate.test(row)) rows[matched++] = row;
+        }
+        return Arrays.copyOf(rows, matched);
+    }
+
+    /**
+     * Rows whose file lies in {@code folder}, or anywhere below it when {@code recursive}.
+     * Each folder is tested once, not each row.
+     */
+    public synchronized int[] rowsUnder(Path folder, boolean recursive) {
+        boolean[] matches = new boolean[directories.size()];
+        for (int id = 0; id < matches.length; id++) {
+            Path dir = directories.get(id);
+            matches[id] = dir != null && (recursive ? dir.startsWith(folder) : dir.equals(folder));
+        }
+        return filter(row -> directory[row] >= 0 && matches[directory[row]]);
+    }
+
+    /**
+     * Rows grouped by size, keeping only sizes shared by two or more of them: the first
+     * stage of duplicate detection, run on the size column. Groups come in size order, and
+     * rows within a group in the order given.
+     */
+    public synchronized List<int[]> sizeGroups(int[] rows) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = size[rows[i]];
+        }
+        int[] order = LongRadixSort.order(keys, true);
+        List<int[]> groups = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= order.length; i++) {
+            if (i == order.length || keys[order[i]] != keys[order[start]]) {
+                if (i - start > 1) groups.add(pick(rows, order, start, i));
+                start = i;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Rows grouped by digest, keeping only digests shared by two or more of them; rows
+     * without a digest are skipped. The rows are radix-sorted on the first eight digest
+     * bytes and only runs that tie there are compared in full.
+     */
+    public synchronized List<int[]> digestGroups(int[] rows) {
+        int[] hashed = new int[rows.length];
+        int n = 0;
+        for (int row : rows) {
+            if (hasDigest.get(row)) hashed[n++] = row;
+        }
+        long[] prefixes = new long[n];
+        for (int i = 0; i < n; i++) {
+            prefixes[i] = digestPrefix(hashed[i]);
+        }
+        int[] order = LongRadixSort.order(prefixes, true);
+        List<int[]> groups = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i < n && prefixes[order[i]] == prefixes[order[start]]) continue;
+            if (i - start > 1) splitByDigest(pick(hashed, order, start, i), groups);
+            start = i;
+        }
+        return groups;
+    }
+
+    private void splitByDigest(int[] run, List<int[]> groups) {
+        Integer[] sorted = new Integer[run.length];
+        for (int i = 0; i < run.length; i++) {
+            sorted[i] = run[i];
+        }
+        Arrays.sort(sorted, this::compareDigests);
+        int start = 0;
+        for (int i = 1; i <= sorted.length; i++) {
+            if (i < sorted.length && compareDigests(sorted[i], sorted[start]) == 0) continue;
+            if (i - start > 1) {
+                int[] group = new int[i - start];
+                for (int j = start; j < i; j++) {
+                    group[j - start] = sorted[j];
+                }
+                groups.add(group);
+            }
+            start = i;
+        }
+    }
+
+    private int compareDigests(int a, int b) {
+        return Arrays.compareUnsigned(digests, a * DIGEST_LENGTH, (a + 1) * DIGEST_LENGTH,
+            digests, b * DIGEST_LENGTH, (b + 1) * DIGEST_LENGTH);
+    }
+
+    private long digestPrefix(int row) {
+        long prefix = 0;
+        for (int i = 0; i < 8; i++) {
+            prefix = (prefix << 8) | (digests[row * DIGEST_LENGTH + i] & 0xFF);
+        }
+        return prefix;
+    }
+
+    private static int[] pick(int[] rows, int[] order, int from, int to) {
+        int[] picked = new int[to - from];
+        for (int i = from; i < to; i++) {
+            picked[i - from] = rows[order[i]];
+        }
+        return picked;
+    }
+
+    private int[] nameOrder(boolean ascending) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] scratch = order.clone();
+        mergeSort(scratch, order, 0, count, ascending);
+        return order;
+    }
+
+    /**
+     * Stable merge sort of row indices by name, sorting {@code src} into {@code dst}.
+     */
+    private void mergeSort(int[] src, int[] dst, int lo, int hi, boolean ascending) {
+        if (hi - lo < 2) return;
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dst, src, lo, mid, ascending);
+        mergeSort(dst, src, mid, hi, ascending);
+        int i = lo, j = mid, out = lo;
+        while (i < mid && j < hi) {
+            int cmp = compareNames(src[i], src[j]);
+            dst[out++] = (ascending ? cmp <= 0 : cmp >= 0) ? src[i++] : src[j++];
+        }
+        while (i < mid) dst[out++] = src[i++];
+        while (j < hi) dst[out++] = src[j++];
+    }
+
+    /**
+     * String.compareTo on two packed names, char by char, without materializing them.
+     */
+    private int compareNames(int a, int b) {
+        int offsetA = nameOffset[a], lengthA = nameLength[a];
+        int offsetB = nameOffset[b], lengthB = nameLength[b];
+        int charsA = Math.abs(lengthA), charsB = Math.abs(lengthB);
+        int limit = Math.min(charsA, charsB);
+        for (int i = 0; i < limit; i++) {
+            char x = charAt(offsetA, lengthA, i);
+            char y = charAt(offsetB, lengthB, i);
+            if (x != y) return x - y;
+        }
+        return charsA - charsB;
+    }
+
+    /**
+     * Sort keys that order like the LocalDateTime views: epoch nanoseconds shifted by the
+     * zone offset in force at that instant. Rows without a time sort first.
+     */
+    private long[] localTimes(long[] nanos) {
+        ZoneRules rules = ZoneId.systemDefault().getRules();
+        long[] keys = new long[count];
+        for (int row = 0; row < count; row++) {
+            long time = nanos[row];
+            if (time == NO_TIME) {
+                keys[row] = Long.MIN_VALUE;
+                continue;
+            }
+            Instant instant = Instant.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L), Math.floorMod(time, 1_000_000_000L));
+            keys[row] = time + rules.getOffset(instant).getTotalSeconds() * 1_000_000_000L;
+        }
+        return keys;
+    }
+
+    /**
+     * Per-row rank of an interned string in sorted order, so ids compare like the strings.
+     */
+    private long[] ranked(int[] ids, Interner table) {
+        Integer[] sorted = new Integer[table.size()];
+        for (int id = 0; id < sorted.length; id++) {
+            sorted[id] = id;
+        }
+        Arrays.sort(sorted, Comparator.comparing(table::value));
+        int[] rank = new int[sorted.length];
+        for (int r = 0; r < sorted.length; r++) {
+            rank[sorted[r]] = r;
+        }
+        long[] keys = new long[count];
+        for (int row = 0; row < count; row++) {
+            keys[row] = ids[row] < 0 ? -1 : rank[ids[row]];
+        }
+        return keys;
+    }
+
+    private int[] directoryRanks() {
+        Integer[] sorted = new Integer[directories.size()];
+        for (int id = 0; id < sorted.length; id++) {
+            sorted[id] = id;
+        }
+        Arrays.sort(sorted, Comparator.comparing(id -> String.valueOf(directories.get(id))));
+        int[] rank = new int[sorted.length];
+        for (int r = 0; r < sorted.length; r++) {
+            rank[sorted[r]] = r;
+        }
+        return rank;
+    }
+
+    /**
+     * Rearranges every column so that new row i is old row {@code order[i]}.
+     * The name pool itself does not move, only the offsets do, unless most of it is stale.
+     */
+    private void permute(int[] order) {
+        directory = permute(directory, order);
+        nameOffset = permute(nameOffset, order);
+        nameLength = permute(nameLength, order);
+        size = permute(size, order);
+        createdNanos = permute(createdNanos, order);
+        modifiedNanos = permute(modifiedNanos, order);
+        extension = permute(extension, order);
+        category = permute(category, order);
+        action = permute(action, order);
+        key = permute(key, order);
+        rowOfKey = null;
+        if (rawPath != null) {
+            Path[] sortedPaths = new Path[rawPath.length];
+            for (int i = 0; i < count; i++) {
+                sortedPaths[i] = rawPath[order[i]];
+            }
+            rawPath = sortedPaths;
+        }
+        byte[] sortedDigests = new byte[digests.length];
+        BitSet sortedHasDigest = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(digests, order[i] * DIGEST_LENGTH, sortedDigests, i * DIGEST_LENGTH, DIGEST_LENGTH);
+            if (hasDigest.get(order[i])) sortedHasDigest.set(i);
+        }
+        digests = sortedDigests;
+        hasDigest.clear();
+        hasDigest.or(sortedHasDigest);
+        compactNamesIfStale();
+    }
+
+    /**
+     * Rewrites the name pool with only the live names once stale bytes outnumber them.
+     */
+    private void compactNamesIfStale() {
+        if (staleNameBytes < (1 << 20) || staleNameBytes * 2 < namePoolSize) return;
+        byte[] compacted = new byte[Math.max(16, namePoolSize - staleNameBytes)];
+        int used = 0;
+        for (int row = 0; row < count; row++) {
+            int bytes = nameBytes(row);
+            System.arraycopy(namePool, nameOffset[row], compacted, used, bytes);
+            nameOffset[row] = used;
+            used += bytes;
+        }
+        namePool = compacted;
+        namePoolSize = used;
+        staleNameBytes = 0;
+    }
+
+    private int[] permute(int[] column, int[] order) {
+        int[] sorted = new int[column.length];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+
+    private long[] permute(long[] column, int[] order) {
+        long[] sorted = new long[column.length];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+
+    // Path lookup
+
+    /**
+     * Row of the file at {@code path}, or -1. The first call builds a hash table over
+     * (folder, name); adds, moves and removals keep it current from then on.
+     */
+    public synchronized int find(Path path) {
+        if (path == null || path.getFileName() == null) return -1;
+        Integer dir = directoryIds.get(path.getParent());
+        if (dir == null) return -1;
+        String name = path.getFileName().toString();
+        if (pathTable == null) buildPathTable();
+        int mask = pathTable.length - 1;
+        for (int slot = pathHash(dir, name) & mask; pathTable[slot] != FREE; slot = (slot + 1) & mask) {
+            if (pathTable[slot] == DELETED) continue;
+            int row = rowOfKey(pathTable[slot] - 1);
+            if (row >= 0 && directory[row] == dir && nameEquals(row, name)
+                && (rawPath == null || rawPath[row] == null || rawPath[row].equals(path))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * View of the file at {@code path}, or null; see {@link #find}.
+     */
+    public synchronized FileInfo lookup(Path path) {
+        int row = find(path);
+        return row < 0 ? null : new Row(key[row]);
+    }
+
+    private void buildPathTable() {
+        int capacity = 16;
+        while (capacity < count * 2) capacity <<= 1;
+        pathTable = new int[capacity];
+        pathTableUsed = 0;
+        for (int row = 0; row < count; row++) {
+            insertPath(row);
+        }
+    }
+
+    private void index(int row) {
+        if (pathTable == null || directory[row] < 0) return;
+        if ((pathTableUsed + 1) * 2 > pathTable.length) {
+            buildPathTable(); // also drops deleted slots
+            return;
+        }
+        insertPath(row);
+    }
+
+    private void insertPath(int row) {
+        if (directory[row] < 0) return;
+        int mask = pathTable.length - 1;
+        int slot = rowHash(row) & mask;
+        while (pathTable[slot] != FREE && pathTable[slot] != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        if (pathTable[slot] == FREE) pathTableUsed++;
+        pathTable[slot] = key[row] + 1;
+    }
+
+    private void unindex(int row) {
+        if (pathTable == null || directory[row] < 0) return;
+        int mask = pathTable.length - 1;
+        for (int slot = rowHash(row) & mask; pathTable[slot] != FREE; slot = (slot + 1) & mask) {
+            if (pathTable[slot] == key[row] + 1) {
+                pathTable[slot] = DELETED;
+                return;
+            }
+        }
+    }
+
+    private int rowHash(int row) {
+        int offset = nameOffset[row];
+        int length = nameLength[row];
+        int h = 0;
+        for (int i = 0; i < Math.abs(length); i++) {
+            h = 31 * h + charAt(offset, length, i);
+        }
+        return mix(directory[row], h);
+    }
+
+    private static int pathHash(int dir, String name) {
+        return mix(dir, name.hashCode());
+    }
+
+    private static int mix(int dir, int nameHash) {
+        int h = dir * 0x9E3779B9 + nameHash;
+        return h ^ (h >>> 16);
+    }
+
+    // Storage helpers
+
+    private int append() {
+        if (count == size.length) grow();
+        int row = count++;
+        key[row] = nextKey++;
+        nameLength[row] = 0;
+        if (rowOfKey != null) {
+            if (key[row] >= rowOfKey.length) {
+                int old = rowOfKey.length;
+                rowOfKey = Arrays.copyOf(rowOfKey, Math.max(key[row] + 1, old + (old >> 1)));
+                Arrays.fill(rowOfKey, old, rowOfKey.length, -1);
+            }
+            rowOfKey[key[row]] = row;
+        }
+        return row;
+    }
+
+    private void store(int row, FileInfo file) {
+        storePath(row, file.getPath(), file.getName());
+        size[row] = file.getSize();
+        long created = file.getCreationNanos();
+        createdNanos[row] = created != NO_TIME ? created : toNanos(file.getCreationDate());
+        long modified = file.getLastModifiedNanos();
+        modifiedNanos[row] = modified != NO_TIME ? modified : toNanos(file.getLastModifiedDate());
+        extension[row] = extensions.id(file.getExtension());
+        category[row] = categories.id(file.getCategory());
+        action[row] = actions.id(file.getAction());
+        setHash(row, file.getHash());
+    }
+
+    private void grow() {
+        int capacity = size.length + (size.length >> 1);
+        directory = Arrays.copyOf(directory, capacity);
+        nameOffset = Arrays.copyOf(nameOffset, capacity);
+        nameLength = Arrays.copyOf(nameLength, capacity);
+        size = Arrays.copyOf(size, capacity);
+        createdNanos = Arrays.copyOf(createdNanos, capacity);
+        modifiedNanos = Arrays.copyOf(modifiedNanos, capacity);
+        extension = Arrays.copyOf(extension, capacity);
+        category = Arrays.copyOf(category, capacity);
+        action = Arrays.copyOf(action, capacity);
+        digests = Arrays.copyOf(digests, capacity * DIGEST_LENGTH);
+        key = Arrays.copyOf(key, capacity);
+        if (rawPath != null) rawPath = Arrays.copyOf(rawPath, capacity);
+    }
+
+    /**
+     * Rewrites a row's path and keeps the path table in step.
+     */
+    private void movePath(int row, Path path, String name) {
+        unindex(row);
+        storePath(row, path, name);
+        index(row);
+    }
+
+    private void storePath(int row, Path path, String name) {
+        directory[row] = path != null ? directoryId(path.getParent()) : -1;
+        storeName(row, name);
+        if (rawPath != null) rawPath[row] = null;
+        if (path != null && !isPlainAscii(name) && !roundTrips(row, path)) {
+            // Bytes the platform charset can't decode (e.g. Latin-1 names under a UTF-8 locale)
+            if (rawPath == null) rawPath = new Path[size.length];
+            rawPath[row] = path;
+        }
+    }
+
+    private boolean roundTrips(int row, Path path) {
+        try {
+            return path.equals(getPath(row));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    private static boolean isPlainAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c > 0x7E || c == '?') return false;
+        }
+        return true;
+    }
+
+    private int directoryId(Path parent) {
+        Integer id = directoryIds.get(parent);
+        if (id == null) {
+            id = directories.size();
+            directories.add(parent);
+            directoryIds.put(parent, id);
+        }
+        return id;
+    }
+
+    /**
+     * Appends the name to the pool unless the row already holds it. A renamed row leaves
+     * its old bytes behind; they are reclaimed by the next reorder or removal once stale
+     * bytes outnumber live ones.
+     */
+    private void storeName(int row, String name) {
+        if (name == null) name = "";
+        if (nameEquals(row, name)) return;
+        staleNameBytes += nameBytes(row);
+        int length = name.length();
+        boolean latin1 = true;
+        for (int i = 0; i < length && latin1; i++) {
+            latin1 = name.charAt(i) <= 0xFF;
+        }
+        int bytes = latin1 ? length : length * 2;
+        if ((long) namePoolSize + bytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("File name storage is full");
+        }
+        if (namePoolSize + bytes > namePool.length) {
+            long grown = Math.max((long) namePoolSize + bytes, namePool.length + ((long) namePool.length >> 1));
+            namePool = Arrays.copyOf(namePool, (int) Math.min(grown, Integer.MAX_VALUE - 8));
+        }
+        int offset = namePoolSize;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (latin1) {
+                namePool[offset + i] = (byte) c;
+            } else {
+                namePool[offset + 2 * i] = (byte) (c >>> 8);
+                namePool[offset + 2 * i + 1] = (byte) c;
+            }
+        }
+        namePoolSize += bytes;
+        nameOffset[row] = offset;
+        nameLength[row] = latin1 ? length : -length;
+    }
+
+    private boolean nameEquals(int row, String name) {
+        int offset = nameOffset[row];
+        int length = nameLength[row];
+        if (Math.abs(length) != name.length()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (charAt(offset, length, i) != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int nameBytes(int row) {
+        int length = nameLength[row];
+        return length >= 0 ? length : -2 * length;
+    }
+
+    private char charAt(int offset, int length, int index) {
+        if (length >= 0) return (char) (namePool[offset + index] & 0xFF);
+        return (char) (((namePool[offset + 2 * index] & 0xFF) << 8) | (namePool[offset + 2 * index + 1] & 0xFF));
+    }
+
+    static long toNanos(LocalDateTime time) {
+        if (time == null) return NO_TIME;
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    static LocalDateTime toTime(long nanos) {
+        if (nanos == NO_TIME) return null;
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+            Math.floorMod(nanos, 1_000_000_000L)), ZoneId.systemDefault());
+    }
+
+    /**
+     * Small string table for low-cardinality columns; null maps to -1.
+     */
+    private static final class Interner {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        synchronized int id(String value) {
+            if (value == null) return -1;
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                values.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        /**
+         * Id of a value already in the table, or -1.
+         */
+        synchronized int find(String value) {
+            Integer id = value == null ? null : ids.get(value);
+            return id != null ? id : -1;
+        }
+
+        synchronized String value(int id) {
+            return id < 0 ? null : values.get(id);
+        }
+
+        synchronized int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batched move engine behind organizeFiles.
+ * Moves are planned up front on one thread: each category directory is created once and
+ * gets a NameRegistry, so name conflicts are resolved in memory instead of with an exists()
+ * call per file. That keeps the naming identical to moving one file at a time.
+ * The moves are then grouped by source and destination file store and each group runs on
+ * a bounded pool, so renames within one device never queue behind cross-device copies.
+ * Moved files get their new path. With a journal batch, the whole plan is recorded and
+ * synced before the first move.
+ */
+final class FileMover {
+
+    private final int parallelism;
+    private final LogSink log;
+
+    FileMover(int parallelism, LogSink log) {
+        this.parallelism = parallelism;
+        this.log = log;
+    }
+
+    private static final class Move {
+        final FileInfo file;
+        final Path target;
+        final NameRegistry names;
+
+        Move(FileInfo file, Path target, NameRegistry names) {
+            this.file = file;
+            this.target = target;
+            this.names = names;
+        }
+    }
+
+    /**
+     * Moves every file into {@code outputDir/<category>}. Stops starting new moves after the
+     * first failure and rethrows it once the moves in flight have finished.
+     *
+     * @param journal records every move for undo; may be null
+     * @return number of files moved
+     */
+    int organize(List<FileInfo> files, Path outputDir, MoveJournal.Batch journal) throws IOException {
+        Files.createDirectories(outputDir);
+
+        Map<Path, NameRegistry> registries = new HashMap<>();
+        List<Move> moves = new ArrayList<>(files.size());
+        for (FileInfo file : files) {
+            Path directory = outputDir.resolve(file.getCategory());
+            NameRegistry names = registries.get(directory);
+            if (names == null) {
+                Files.createDirectories(directory);
+                names = NameRegistry.of(directory);
+                registries.put(directory, names);
+            }
+            moves.add(new Move(file, names.claim(file.getName(), "_"), names));
+        }
+
+        if (journal != null) {
+            for (Move move : moves) {
+                journal.record(move.file.getPath(), move.target);
+            }
+            journal.sync();
+        }
+
+        // One file store lookup per directory, not per file
+        Map<Path, FileStore> stores = new HashMap<>();
+        Map<List<FileStore>, List<Move>> groups = new LinkedHashMap<>();
+        for (Move move : moves) {
+            List<FileStore> devices = List.of(storeOf(move.file.getPath().getParent(), stores), storeOf(move.target.getParent(), stores));
+            groups.computeIfAbsent(devices, k -> new ArrayList<>()).add(move);
+        }
+
+        AtomicInteger moved = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        if (parallelism <= 1) {
+            for (Move move : moves) {
+                execute(move, journal, moved, failure);
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "sortify-move");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                for (List<Move> group : groups.values()) {
+                    List<Future<?>> pending = new ArrayList<>(group.size());
+                    for (Move move : group) {
+                        pending.add(pool.submit(() -> execute(move, journal, moved, failure)));
+                    }
+                    for (Future<?> future : pending) {
+                        future.get();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while moving files", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Move failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        log.info("Moved " + moved.get() + " files to " + outputDir + " (" + registries.size()
+            + " folders, " + groups.size() + " device groups)");
+        return moved.get();
+    }
+
+    private void execute(Move move, MoveJournal.Batch journal, AtomicInteger moved, AtomicReference<IOException> failure) {
+        if (failure.get() != null) return;
+        Path source = move.file.getPath();
+        Path target = move.target;
+        try {
+            try {
+                Files.move(source, target);
+            } catch (FileAlreadyExistsException e) {
+                // Taken since the listing, or a case-insensitive clash: fall back to checking the disk
+                target = move.names.claimOnDisk(move.file.getName(), "_");
+                if (journal != null) {
+                    journal.record(source, target);
+                    journal.sync();
+                }
+                Files.move(source, target);
+            }
+            move.file.setPath(target);
+            moved.incrementAndGet();
+            if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Moved " + move.file.getName() + " to " + target);
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static FileStore storeOf(Path directory, Map<Path, FileStore> stores) throws IOException {
+        FileStore store = stores.get(directory);
+        if (store == null) {
+            store = Files.getFileStore(directory);
+            stores.put(directory, store);
+        }
+        return store;
+    }
+}
@@ -1,85 +1,382 @@
 package com.sortify;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class FileOrganizer {
 
-    private Consumer<String> logCallback;
+    private static final int SAMPLE_SIZE = 4096;
+    private static final KeywordMatcher NAME_MATCHER = compileNameKeywords();
+    private static final int CLASSIFY_CHUNK = 1024;
+    private static final int BUCKET_INSERTION_LIMIT = 32;
+    private static final int AUTO_RADIX_MIN = 4096;
+    private static final int AUTO_SAMPLE = 1024;
+    private static final int STAGE_NAME = 0;
+    private static final int STAGE_CONTEXT = 1;
+    private static final int STAGE_EXTENSION = 2;
+    private static final ThreadLocal<KeywordMatcher.Scorer> NAME_SCORER = ThreadLocal.withInitial(NAME_MATCHER::newScorer);
+
+    private LogSink log = LogSink.discard();
     private BiConsumer<String, Double> progressCallback;
     private int duplicatesRemoved = 0;
     private long spaceRecovered = 0;
+    private long hashMemoryMapThreshold = Long.MAX_VALUE;
+    private DuplicateScanReport lastDuplicateReport;
+    private int hashParallelism = Runtime.getRuntime().availableProcessors();
+    private HashCache hashCache;
+    private int scanParallelism = Runtime.getRuntime().availableProcessors();
+    private int classificationParallelism = Runtime.getRuntime().availableProcessors();
+    private int sortParallelism = Runtime.getRuntime().availableProcessors();
+    private int parallelSortThreshold = 8192;
+    private String lastSortAlgorithm;
+    private int moveParallelism = Runtime.getRuntime().availableProcessors();
+    private ExtensionTable extensionTable = new ExtensionTable(ExtensionTable.defaultMappings());
+    private Path workspaceStore;
+    private MoveJournal journal;
 
     public void setLogCallback(Consumer<String> logCallback) {
-        this.logCallback = logCallback;
+        this.log = LogSink.direct(logCallback);
+    }
+
+    /**
+     * Level-aware log target; per-file messages are logged at DEBUG.
+     */
+    public void setLogSink(LogSink log) {
+        this.log = log;
     }
 
     public void setProgressCallback(BiConsumer<String, Double> progressCallback) {
         this.progressCallback = progressCallback;
     }
 
-    public List<FileInfo> scanDirectory(Path directory, boolean includeSubfolders, boolean includeHidden) throws IOException {
-        List<FileInfo> files = new ArrayList<>();
-        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if (Files.isRegularFile(file) && (includeHidden || !Files.isHidden(file))) {
-                    String name = file.getFileName().toString();
-                    String extension = getExtension(name);
-                    LocalDateTime creationDate = LocalDateTime.ofInstant(attrs.creationTime().toInstant(), ZoneId.systemDefault());
-                    LocalDateTime lastModifiedDate = LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault());
-                    FileInfo fileInfo = new FileInfo(file, name, attrs.size(), extension, creationDate, lastModifiedDate);
-                    files.add(fileInfo);
-                    logCallback.accept("Scanned: " + file.toString());
-                }
-                return FileVisitResult.CONTINUE;
-            }
+    /**
+     * Files at least this large are hashed through memory-mapped regions.
+     */
+    public void setHashMemoryMapThreshold(long hashMemoryMapThreshold) {
+        this.hashMemoryMapThreshold = hashMemoryMapThreshold;
+    }
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                if (!includeSubfolders && !dir.equals(directory)) {
-                    return FileVisitResult.SKIP_SUBTREE;
-                }
-                return FileVisitResult.CONTINUE;
-            }
-        });
+    /**
+     * Number of worker threads used to hash duplicate candidates; 1 hashes sequentially.
+     */
+    public void setHashParallelism(int hashParallelism) {
+        this.hashParallelism = Math.max(1, hashParallelism);
+    }
+
+    /**
+     * Number of fork-join workers used to walk the directory tree.
+     */
+    public void setScanParallelism(int scanParallelism) {
+        this.scanParallelism = Math.max(1, scanParallelism);
+    }
+
+    /**
+     * Persistent digest index consulted before hashing; null disables caching.
+     */
+    public void setHashCache(HashCache hashCache) {
+        this.hashCache = hashCache;
+    }
+
+    /**
+     * Folder holding one snapshot file per workspace root; null disables snapshots.
+     */
+    public void setWorkspaceStore(Path workspaceStore) {
+        this.workspaceStore = workspaceStore;
+    }
+
+    /**
+     * Number of fork-join workers used by classifyFiles and the scanPipeline classifier; 1 classifies sequentially.
+     */
+    public void setClassificationParallelism(int classificationParallelism) {
+        this.classificationParallelism = Math.max(1, classificationParallelism);
+    }
+
+    /**
+     * Number of fork-join workers used by the merge sort; 1 sorts sequentially.
+     */
+    public void setSortParallelism(int sortParallelism) {
+        this.sortParallelism = Math.max(1, sortParallelism);
+    }
+
+    /**
+     * Sub-ranges at or below this many files are sorted and merged sequentially by one worker.
+     */
+    public void setParallelSortThreshold(int parallelSortThreshold) {
+        this.parallelSortThreshold = Math.max(1, parallelSortThreshold);
+    }
+
+    /**
+     * Number of threads moving files in organizeFiles; 1 moves them one at a time.
+     */
+    public void setMoveParallelism(int moveParallelism) {
+        this.moveParallelism = Math.max(1, moveParallelism);
+    }
+
+    /**
+     * Adds user-defined extension → category mappings on top of the built-in ones.
+     * Meant to be called once at startup; the lookup table is rebuilt here, not per file.
+     */
+    public void setExtensionMappings(Map<String, String> customMappings) {
+        Map<String, String> mappings = ExtensionTable.defaultMappings();
+        customMappings.forEach((extension, category) -> mappings.put(extension.toLowerCase(), category));
+        extensionTable = new ExtensionTable(mappings);
+    }
+
+    /**
+     * Loads extension mappings from a properties file ({@code ext=Category/Name} per line).
+     */
+    public void loadExtensionMappings(Path propertiesFile) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(propertiesFile)) {
+            properties.load(reader);
+        }
+        Map<String, String> customMappings = new HashMap<>();
+        for (String extension : properties.stringPropertyNames()) {
+            customMappings.put(extension, properties.getProperty(extension).trim());
+        }
+        setExtensionMappings(customMappings);
+        log.info("Loaded " + customMappings.size() + " custom extension mappings from " + propertiesFile);
+    }
+
+    public List<FileInfo> scanDirectory(Path directory, boolean includeSubfolders, boolean includeHidden) throws IOException {
+        DirectoryWalker walker = new DirectoryWalker(scanParallelism, includeSubfolders, includeHidden, this::toFileInfo);
+        List<FileInfo> files = walker.walk(directory);
+        log.info("Scanned " + files.size() + " files in " + directory);
         return files;
     }
 
-    private String getExtension(String filename) {
+    /**
+     * Push API over the directory walk: each subscription walks the tree and publishes
+     * files as they are visited, through a bounded buffer.
+     */
+    public Flow.Publisher<FileInfo> scanPublisher(Path directory, boolean includeSubfolders, boolean includeHidden) {
+        DirectoryWalker walker = new DirectoryWalker(scanParallelism, includeSubfolders, includeHidden, this::toFileInfo);
+        return ScanPipeline.publisher(walker, directory);
+    }
+
+    /**
+     * Scans the tree into a FileInventory, classifying each file while the walk is still
+     * running, on classificationParallelism workers.
+     *
+     * @param classifier see {@link #newClassifier}; null skips classification
+     */
+    ScanResult scanPipeline(Path directory, boolean includeSubfolders, boolean includeHidden, Classifier classifier) throws IOException {
+        DirectoryWalker walker = new DirectoryWalker(scanParallelism, includeSubfolders, includeHidden, this::toFileInfo);
+        Map<Path, Long> directoryTimes = new ConcurrentHashMap<>();
+        walker.recordDirectoryTimes(directoryTimes);
+        ScanResult scan = ScanPipeline.collect(ScanPipeline.publisher(walker, directory), classifier, classificationParallelism);
+        log.info("Scanned " + scan.getInventory().size() + " files in " + directory);
+        return new ScanResult(scan.getInventory(), directoryTimes);
+    }
+
+    /**
+     * Saves a scan of {@code directory} to the workspace store, replacing any earlier one.
+     *
+     * @param directoryTimes folder times recorded by the walk (see ScanResult); folders without
+     *                       one, or all of them when null, are listed again on open
+     */
+    public void saveWorkspace(Path directory, boolean includeSubfolders, boolean includeHidden,
+                              FileInventory files, Map<Path, Long> directoryTimes, boolean duplicatesDetected) throws IOException {
+        if (workspaceStore == null) return;
+        long start = System.nanoTime();
+        int saved = WorkspaceSnapshot.write(WorkspaceSnapshot.fileFor(workspaceStore, directory, ".bin"), directory,
+            includeSubfolders, includeHidden, files, directoryTimes, duplicatesDetected);
+        log.info(String.format("Saved workspace snapshot of %d files in %.0f ms", saved, (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * Journals organize and recovery moves under {@code directory} from now on, so they can
+     * be undone. The journal lives in the workspace store next to the snapshot.
+     */
+    public void openJournal(Path directory) {
+        journal = workspaceStore == null ? null : new MoveJournal(WorkspaceSnapshot.fileFor(workspaceStore, directory, ".journal"));
+    }
+
+    /**
+     * Loads the saved scan of {@code directory} and validates it against the tree.
+     *
+     * @param stage re-run on new and changed files, as during the scan; may be null
+     * @return the validated snapshot, or null when there is no usable one
+     */
+    WorkspaceSnapshot openWorkspace(Path directory, Consumer<FileInfo> stage) throws IOException {
+        if (workspaceStore == null) return null;
+        Path file = WorkspaceSnapshot.fileFor(workspaceStore, directory, ".bin");
+        if (!Files.exists(file)) return null;
+        long start = System.nanoTime();
+        WorkspaceSnapshot snapshot;
+        try {
+            snapshot = WorkspaceSnapshot.read(file);
+        } catch (IOException e) {
+            log.warn("Ignoring workspace snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+        if (!snapshot.getRoot().equals(directory.toAbsolutePath().normalize())) return null;
+        snapshot.validate(scanParallelism, this::toFileInfo, stage);
+        log.info(String.format("Opened workspace snapshot of %d files in %.0f ms (%d changed, %d removed, %d new)",
+            snapshot.getScan().getInventory().size(), (System.nanoTime() - start) / 1e6,
+            snapshot.getChanged(), snapshot.getRemoved(), snapshot.getAdded()));
+        return snapshot;
+    }
+
+    /**
+     * Live index over a finished scan; see LiveIndex. Call start() to begin watching.
+     *
+     * @param stage re-run on new and modified files, as during the scan; may be null
+     */
+    LiveIndex watch(Path directory, ScanResult scan, boolean includeSubfolders, boolean includeHidden,
+                    Consumer<FileInfo> stage, Consumer<LiveIndex.Changes> listener) {
+        return new LiveIndex(directory, scan, scanParallelism, includeSubfolders, includeHidden, this::toFileInfo, stage, listener, log);
+    }
+
+    private FileInfo toFileInfo(Path file, BasicFileAttributes attrs) {
+        String name = file.getFileName().toString();
+        String extension = getExtension(name);
+        LocalDateTime creationDate = LocalDateTime.ofInstant(attrs.creationTime().toInstant(), ZoneId.systemDefault());
+        LocalDateTime lastModifiedDate = LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault());
+        FileInfo fileInfo = new FileInfo(file, name, attrs.size(), extension, creationDate, lastModifiedDate);
+        fileInfo.setCreationNanos(attrs.creationTime().to(TimeUnit.NANOSECONDS));
+        fileInfo.setLastModifiedNanos(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Scanned: " + file);
+        return fileInfo;
+    }
+
+    static String getExtension(String filename) {
         int lastDot = filename.lastIndexOf('.');
         return lastDot > 0 ? filename.substring(lastDot + 1).toLowerCase() : "";
     }
 
     public Map<String, List<FileInfo>> detectDuplicatesAdvanced(List<FileInfo> files) throws IOException, NoSuchAlgorithmException {
-        Map<String, List<FileInfo>> hashGroups = new HashMap<>();
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-
-        // Group by size first
+        // Stage 1: group by size
         Map<Long, List<FileInfo>> sizeGroups = new HashMap<>();
         for (FileInfo file : files) {
             sizeGroups.computeIfAbsent(file.getSize(), k -> new ArrayList<>()).add(file);
         }
+        return detectDuplicates(files.size(), sizeGroups.values(), null);
+    }
 
-        // Only hash files with same size
-        for (List<FileInfo> group : sizeGroups.values()) {
-            if (group.size() > 1) {
-                for (FileInfo file : group) {
-                    String hash = computeHash(file.getPath(), digest);
-                    file.setHash(hash);
-                    hashGroups.computeIfAbsent(hash, k -> new ArrayList<>()).add(file);
-                    logCallback.accept("Hashed: " + file.getName());
-                }
+    /**
+     * Duplicate detection over a pipeline result; see {@link #detectDuplicatesAdvanced(FileInventory, String)}.
+     */
+    public Map<String, List<FileInfo>> detectDuplicatesAdvanced(ScanResult scan) throws IOException, NoSuchAlgorithmException {
+        return detectDuplicatesAdvanced(scan.getInventory(), null);
+    }
+
+    /**
+     * Duplicate detection over the rows of one category, or all rows when {@code category} is
+     * null. The size stage runs on the size column and only the surviving candidates are
+     * hashed. Their digests are stored in the digest column and grouped there.
+     *
+     * @return digest → views of the files sharing it
+     */
+    public Map<String, List<FileInfo>> detectDuplicatesAdvanced(FileInventory inventory, String category) throws IOException, NoSuchAlgorithmException {
+        int fileCount;
+        List<List<FileInfo>> sizeGroups = new ArrayList<>();
+        synchronized (inventory) {
+            int[] rows = inventory.filter(category, null, Long.MIN_VALUE, Long.MAX_VALUE);
+            fileCount = rows.length;
+            for (int[] group : inventory.sizeGroups(rows)) {
+                sizeGroups.add(inventory.asList(group));
+            }
+        }
+        return detectDuplicates(fileCount, sizeGroups, inventory);
+    }
+
+    /**
+     * @param inventory owner of the files, whose digest column groups the hashed files; null
+     *                  to group them by hex digest instead
+     */
+    private Map<String, List<FileInfo>> detectDuplicates(int fileCount, Collection<List<FileInfo>> sizeGroups,
+                                                         FileInventory inventory) throws IOException, NoSuchAlgorithmException {
+        DuplicateScanReport report = new DuplicateScanReport();
+        report.setFilesScanned(fileCount);
+        AtomicLong bytesHashed = new AtomicLong();
+        AtomicInteger cacheHits = new AtomicInteger();
+
+        List<List<FileInfo>> candidates = keepGroupsWithDuplicates(sizeGroups);
+        report.setSizeCandidates(countFiles(candidates));
+
+        // Stage 2: regroup by a head/tail sample; small files are fully covered by the sample, so skip it
+        List<List<FileInfo>> sampled = new ArrayList<>();
+        List<List<FileInfo>> toSample = new ArrayList<>();
+        for (List<FileInfo> group : candidates) {
+            if (group.get(0).getSize() <= 2L * SAMPLE_SIZE) {
+                sampled.add(group);
+            } else {
+                toSample.add(group);
+            }
+        }
+        String[] samples = hashAll(flatten(toSample), (engine, file) -> cachedHash(engine, file, true, cacheHits), bytesHashed);
+        int next = 0;
+        for (List<FileInfo> group : toSample) {
+            Map<String, List<FileInfo>> sampleGroups = new HashMap<>();
+            for (FileInfo file : group) {
+                sampleGroups.computeIfAbsent(samples[next++], k -> new ArrayList<>()).add(file);
+            }
+            sampled.addAll(keepGroupsWithDuplicates(sampleGroups.values()));
+        }
+        report.setSampleCandidates(countFiles(sampled));
+
+        // Stage 3: full hash of the remaining candidates
+        List<FileInfo> toHash = flatten(sampled);
+        String[] hashes = hashAll(toHash, (engine, file) -> cachedHash(engine, file, false, cacheHits), bytesHashed);
+        for (int i = 0; i < toHash.size(); i++) {
+            toHash.get(i).setHash(hashes[i]);
+        }
+        Map<String, List<FileInfo>> duplicates = inventory != null
+            ? groupByDigest(inventory, toHash)
+            : groupByHash(toHash);
+        report.setDuplicateFiles(countFiles(duplicates.values()));
+        report.setDuplicateGroups(duplicates.size());
+        report.setBytesHashed(bytesHashed.get());
+        report.setCacheHits(cacheHits.get());
+        lastDuplicateReport = report;
+        log.info(report.toString());
+        if (hashCache != null) {
+            try {
+                hashCache.save();
+            } catch (IOException e) {
+                log.warn("Could not save hash cache: " + e.getMessage());
             }
         }
+        return duplicates;
+    }
+
+    /**
+     * Groups hashed views on the inventory's digest column, keeping groups of two or more.
+     * Views whose row was removed meanwhile are left out.
+     */
+    private static Map<String, List<FileInfo>> groupByDigest(FileInventory inventory, List<FileInfo> hashed) {
+        Map<String, List<FileInfo>> duplicates = new HashMap<>();
+        synchronized (inventory) {
+            int[] rows = new int[hashed.size()];
+            int found = 0;
+            for (FileInfo file : hashed) {
+                int row = inventory.rowOf(file);
+                if (row >= 0) rows[found++] = row;
+            }
+            for (int[] group : inventory.digestGroups(Arrays.copyOf(rows, found))) {
+                duplicates.put(inventory.getHash(group[0]), inventory.asList(group));
+            }
+        }
+        return duplicates;
+    }
+
+    private static Map<String, List<FileInfo>> groupByHash(List<FileInfo> hashed) {
+        Map<String, List<FileInfo>> hashGroups = new HashMap<>();
+        for (FileInfo file : hashed) {
+            hashGroups.computeIfAbsent(file.getHash(), k -> new ArrayList<>()).add(file);
+        }
 
         // Filter groups with more than one file
         Map<String, List<FileInfo>> duplicates = new HashMap<>();
@@ -91,48 +388,284 @@ public class FileOrganizer {
         return duplicates;
     }
 
-    private String computeHash(Path file, MessageDigest digest) throws IOException {
-        byte[] bytes = Files.readAllBytes(file);
-        byte[] hashBytes = digest.digest(bytes);
-        StringBuilder sb = new StringBuilder();
-        for (byte b : hashBytes) {
-            sb.append(String.format("%02x", b));
+    private interface HashTask {
+        String hash(HashEngine engine, FileInfo file) throws IOException;
+    }
+
+    /**
+     * Hashes every file and returns the results in input order.
+     * With more than one worker, each worker owns its own HashEngine and pulls the next
+     * file from a queue ordered largest-first, so one huge file cannot stall the tail of the run.
+     */
+    private String[] hashAll(List<FileInfo> files, HashTask task, AtomicLong bytesHashed) throws IOException, NoSuchAlgorithmException {
+        String[] results = new String[files.size()];
+        int workers = Math.min(hashParallelism, files.size());
+        if (workers <= 1) {
+            HashEngine engine = newHashEngine();
+            for (int i = 0; i < files.size(); i++) {
+                results[i] = task.hash(engine, files.get(i));
+                if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Hashed: " + files.get(i).getName());
+            }
+            bytesHashed.addAndGet(engine.getBytesHashed());
+            return results;
         }
-        return sb.toString();
+
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(files.get(b).getSize(), files.get(a).getSize()));
+
+        AtomicInteger cursor = new AtomicInteger();
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            jobs.add(() -> {
+                HashEngine engine = newHashEngine();
+                try {
+                    int next;
+                    while ((next = cursor.getAndIncrement()) < order.length) {
+                        int index = order[next];
+                        results[index] = task.hash(engine, files.get(index));
+                        if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Hashed: " + files.get(index).getName());
+                    }
+                } finally {
+                    bytesHashed.addAndGet(engine.getBytesHashed());
+                }
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "sortify-hash");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Void> future : pool.invokeAll(jobs)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Hashing interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof NoSuchAlgorithmException) throw (NoSuchAlgorithmException) e.getCause();
+            throw new IOException("Hashing failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the sample or full hash from the cache when the file is unchanged, otherwise hashes and records it.
+     */
+    private String cachedHash(HashEngine engine, FileInfo file, boolean sample, AtomicInteger cacheHits) throws IOException {
+        Path path = file.getPath();
+        if (hashCache == null) {
+            return sample ? engine.hashSample(path, SAMPLE_SIZE) : engine.hash(path);
+        }
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        String hash = sample ? hashCache.getSample(path, attrs) : hashCache.getFull(path, attrs);
+        if (hash != null) {
+            cacheHits.incrementAndGet();
+            return hash;
+        }
+        if (sample) {
+            hash = engine.hashSample(path, SAMPLE_SIZE);
+            hashCache.putSample(path, attrs, hash);
+        } else {
+            hash = engine.hash(path);
+            hashCache.putFull(path, attrs, hash);
+        }
+        return hash;
+    }
+
+    private HashEngine newHashEngine() throws NoSuchAlgorithmException {
+        HashEngine engine = new HashEngine();
+        engine.setMemoryMapThreshold(hashMemoryMapThreshold);
+        return engine;
+    }
+
+    private List<FileInfo> flatten(List<List<FileInfo>> groups) {
+        List<FileInfo> flat = new ArrayList<>(countFiles(groups));
+        for (List<FileInfo> group : groups) {
+            flat.addAll(group);
+        }
+        return flat;
+    }
+
+    private List<List<FileInfo>> keepGroupsWithDuplicates(Collection<List<FileInfo>> groups) {
+        List<List<FileInfo>> kept = new ArrayList<>();
+        for (List<FileInfo> group : groups) {
+            if (group.size() > 1) {
+                kept.add(group);
+            }
+        }
+        return kept;
+    }
+
+    private int countFiles(Collection<List<FileInfo>> groups) {
+        int count = 0;
+        for (List<FileInfo> group : groups) {
+            count += group.size();
+        }
+        return count;
+    }
+
+    public DuplicateScanReport getLastDuplicateReport() {
+        return lastDuplicateReport;
     }
 
     public void classifyFiles(List<FileInfo> files) {
         classifyFiles(files, true, true, 3); // Default settings
     }
 
+    /**
+     * Classifies the list in chunks on classificationParallelism workers, the same way the
+     * scanPipeline classifies files as they arrive.
+     */
     public void classifyFiles(List<FileInfo> files, boolean enableNameBased, boolean enableContextRules, int confidenceThreshold) {
-        for (FileInfo file : files) {
-            String category = null;
-
-            // Stage 1: Name-Based Intelligent Classification (Primary)
-            if (enableNameBased) {
-                category = classifyByName(file, confidenceThreshold);
-                if (category != null) {
-                    file.setCategory(category);
-                    logCallback.accept("Classified " + file.getName() + " as " + category + " (Name-based)");
-                    continue;
-                }
+        Classifier classifier = newClassifier(enableNameBased, enableContextRules, confidenceThreshold);
+        if (classificationParallelism <= 1 || files.size() <= CLASSIFY_CHUNK) {
+            classifier.report(files.size(), classifier.classifyAll(files));
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(classificationParallelism);
+        try {
+            List<ForkJoinTask<ClassificationStats>> chunks = new ArrayList<>();
+            for (int from = 0; from < files.size(); from += CLASSIFY_CHUNK) {
+                List<FileInfo> chunk = files.subList(from, Math.min(files.size(), from + CLASSIFY_CHUNK));
+                chunks.add(pool.submit(() -> classifier.classifyAll(chunk)));
+            }
+            ClassificationStats stats = new ClassificationStats();
+            for (ForkJoinTask<ClassificationStats> chunk : chunks) {
+                stats.merge(chunk.join());
             }
+            classifier.report(files.size(), stats);
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-            // Stage 2: Rule-Based Contextual Classification
-            if (enableContextRules) {
-                category = classifyByContext(file);
-                if (category != null) {
-                    file.setCategory(category);
-                    logCallback.accept("Classified " + file.getName() + " as " + category + " (Context-based)");
-                    continue;
-                }
+    /**
+     * Classifier for one run with the given settings; see {@link Classifier}.
+     */
+    Classifier newClassifier(boolean enableNameBased, boolean enableContextRules, int confidenceThreshold) {
+        return new Classifier(enableNameBased, enableContextRules, confidenceThreshold);
+    }
+
+    public void classifyFile(FileInfo file, boolean enableNameBased, boolean enableContextRules, int confidenceThreshold) {
+        classify(file, enableNameBased, enableContextRules, confidenceThreshold, LocalDateTime.now().minusDays(7));
+    }
+
+    /**
+     * Classifies one file and returns the stage that decided it.
+     */
+    private int classify(FileInfo file, boolean enableNameBased, boolean enableContextRules, int confidenceThreshold, LocalDateTime weekAgo) {
+        String category = null;
+
+        // Stage 1: Name-Based Intelligent Classification (Primary)
+        if (enableNameBased) {
+            category = classifyByName(file, confidenceThreshold);
+            if (category != null) {
+                file.setCategory(category);
+                if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Classified " + file.getName() + " as " + category + " (Name-based)");
+                return STAGE_NAME;
+            }
+        }
+
+        // Stage 2: Rule-Based Contextual Classification
+        if (enableContextRules) {
+            category = classifyByContext(file, weekAgo);
+            if (category != null) {
+                file.setCategory(category);
+                if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Classified " + file.getName() + " as " + category + " (Context-based)");
+                return STAGE_CONTEXT;
+            }
+        }
+
+        // Stage 3: Extension-Based General Classification (Fallback)
+        category = classifyByExtension(file);
+        file.setCategory(category);
+        if (log.isEnabled(LogSink.Level.DEBUG)) log.debug("Classified " + file.getName() + " as " + category + " (Extension-based)");
+        return STAGE_EXTENSION;
+    }
+
+    /**
+     * Settings for one classification run. The "Recent Files" cutoff is taken once, when the
+     * run starts, so a file is classified the same way whenever a worker reaches it and the
+     * result matches a sequential run. Workers count into their own ClassificationStats via
+     * classifyAll(), and the merged counts are logged once through report().
+     */
+    final class Classifier implements Consumer<FileInfo> {
+        private final boolean enableNameBased;
+        private final boolean enableContextRules;
+        private final int confidenceThreshold;
+        private final LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
+
+        private Classifier(boolean enableNameBased, boolean enableContextRules, int confidenceThreshold) {
+            this.enableNameBased = enableNameBased;
+            this.enableContextRules = enableContextRules;
+            this.confidenceThreshold = confidenceThreshold;
+        }
+
+        /**
+         * Classifies one file against the run's cutoff, without counting it.
+         */
+        @Override
+        public void accept(FileInfo file) {
+            FileOrganizer.this.classify(file, enableNameBased, enableContextRules, confidenceThreshold, weekAgo);
+        }
+
+        /**
+         * Classifies one file against the current time, for live updates that arrive long
+         * after the run started.
+         */
+        void classifyNow(FileInfo file) {
+            classifyFile(file, enableNameBased, enableContextRules, confidenceThreshold);
+        }
+
+        /**
+         * Classifies one file, counting it in {@code stats}, which only the caller's thread uses.
+         */
+        void classify(FileInfo file, ClassificationStats stats) {
+            stats.count(FileOrganizer.this.classify(file, enableNameBased, enableContextRules, confidenceThreshold, weekAgo));
+        }
+
+        /**
+         * Classifies a batch on the calling worker, counting into stats of its own.
+         */
+        ClassificationStats classifyAll(List<FileInfo> files) {
+            ClassificationStats stats = new ClassificationStats();
+            for (FileInfo file : files) {
+                classify(file, stats);
             }
+            return stats;
+        }
 
-            // Stage 3: Extension-Based General Classification (Fallback)
-            category = classifyByExtension(file);
-            file.setCategory(category);
-            logCallback.accept("Classified " + file.getName() + " as " + category + " (Extension-based)");
+        void report(int fileCount, ClassificationStats stats) {
+            log.info("Classified " + fileCount + " files (" + stats + ")");
+        }
+    }
+
+    /**
+     * Per-worker counts of which stage classified each file, merged once at the end.
+     */
+    static final class ClassificationStats {
+        private final int[] byStage = new int[3];
+
+        void count(int stage) {
+            byStage[stage]++;
+        }
+
+        ClassificationStats merge(ClassificationStats other) {
+            for (int i = 0; i < byStage.length; i++) byStage[i] += other.byStage[i];
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "name-based " + byStage[STAGE_NAME] + ", context-based " + byStage[STAGE_CONTEXT]
+                + ", extension-based " + byStage[STAGE_EXTENSION];
         }
     }
 
@@ -141,9 +674,17 @@ public class FileOrganizer {
      * Uses keyword matching with confidence scoring
      */
     private String classifyByName(FileInfo file, int confidenceThreshold) {
-        String name = file.getName().toLowerCase().replaceAll("[^a-zA-Z0-9]", " ");
-        String[] tokens = name.split("\\s+");
+        KeywordMatcher.Scorer scorer = NAME_SCORER.get();
+        scorer.reset();
+        FilenameTokenizer.tokenize(file.getName(), scorer);
+        return scorer.best(confidenceThreshold);
+    }
 
+    /**
+     * Builds the weighted keyword tables once. Categories are listed in the order the
+     * scores used to be collected, which the matcher relies on to break ties the same way.
+     */
+    private static KeywordMatcher compileNameKeywords() {
         // Academic categories with weighted keywords
         Map<String, Map<String, Integer>> academicKeywords = new HashMap<>();
         academicKeywords.put("Assignments", Map.of(
@@ -195,67 +736,20 @@ public class FileOrganizer {
             "photo", 4, "img", 3, "camera", 3, "pic", 3
         ));
 
-        // Calculate confidence scores for each category
-        Map<String, Integer> categoryScores = new HashMap<>();
-
-        // Check academic keywords
-        for (Map.Entry<String, Map<String, Integer>> category : academicKeywords.entrySet()) {
-            int score = calculateScore(tokens, category.getValue());
-            if (score > 0) categoryScores.put("Academic/" + category.getKey(), score);
-        }
-
-        // Check finance keywords
-        for (Map.Entry<String, Map<String, Integer>> category : financeKeywords.entrySet()) {
-            int score = calculateScore(tokens, category.getValue());
-            if (score > 0) categoryScores.put("Finance/" + category.getKey(), score);
-        }
-
-        // Check personal keywords
-        for (Map.Entry<String, Map<String, Integer>> category : personalKeywords.entrySet()) {
-            int score = calculateScore(tokens, category.getValue());
-            if (score > 0) categoryScores.put("Personal/" + category.getKey(), score);
-        }
-
-        // Check development keywords
-        for (Map.Entry<String, Map<String, Integer>> category : devKeywords.entrySet()) {
-            int score = calculateScore(tokens, category.getValue());
-            if (score > 0) categoryScores.put("Development/" + category.getKey(), score);
-        }
-
-        // Check media keywords
-        for (Map.Entry<String, Map<String, Integer>> category : mediaKeywords.entrySet()) {
-            int score = calculateScore(tokens, category.getValue());
-            if (score > 0) categoryScores.put("Media/" + category.getKey(), score);
-        }
-
-        // Return highest scoring category if above threshold
-        return categoryScores.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .filter(entry -> entry.getValue() >= confidenceThreshold) // Dynamic confidence threshold
-            .map(Map.Entry::getKey)
-            .orElse(null);
-    }
-
-    /**
-     * Calculate confidence score for a category based on keyword matches
-     */
-    private int calculateScore(String[] tokens, Map<String, Integer> keywords) {
-        int totalScore = 0;
-        for (String token : tokens) {
-            for (Map.Entry<String, Integer> keyword : keywords.entrySet()) {
-                if (token.contains(keyword.getKey()) || keyword.getKey().contains(token)) {
-                    totalScore += keyword.getValue();
-                }
-            }
-        }
-        return totalScore;
+        LinkedHashMap<String, Map<String, Integer>> keywords = new LinkedHashMap<>();
+        academicKeywords.forEach((category, words) -> keywords.put("Academic/" + category, words));
+        financeKeywords.forEach((category, words) -> keywords.put("Finance/" + category, words));
+        personalKeywords.forEach((category, words) -> keywords.put("Personal/" + category, words));
+        devKeywords.forEach((category, words) -> keywords.put("Development/" + category, words));
+        mediaKeywords.forEach((category, words) -> keywords.put("Media/" + category, words));
+        return new KeywordMatcher(keywords);
     }
 
     /**
      * Stage 2: Rule-Based Contextual Classification
      * Uses folder origin, date ranges, and user-defined rules
      */
-    private String classifyByContext(FileInfo file) {
+    private String classifyByContext(FileInfo file, LocalDateTime weekAgo) {
         Path filePath = file.getPath();
         String parentDir = filePath.getParent().getFileName().toString().toLowerCase();
 
@@ -275,7 +769,6 @@ public class FileOrganizer {
         }
 
         // Rule 4: Date-based rules (files from last 7 days)
-        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
         if (file.getLastModifiedDate().isAfter(weekAgo)) {
             return "Recent Files";
         }
@@ -287,64 +780,31 @@ public class FileOrganizer {
      * Stage 3: Extension-Based General Classification (Fallback)
      */
     private String classifyByExtension(FileInfo file) {
-        String ext = file.getExtension().toLowerCase();
-
-        // Documents
-        if (Arrays.asList("pdf", "doc", "docx", "ppt", "pptx", "xls", "xlsx", "txt", "rtf").contains(ext)) {
-            return "General/Documents";
-        }
-
-        // Images
-        if (Arrays.asList("jpg", "jpeg", "png", "gif", "bmp", "tiff", "svg", "webp").contains(ext)) {
-            return "General/Images";
-        }
-
-        // Videos
-        if (Arrays.asList("mp4", "avi", "mkv", "mov", "wmv", "flv", "webm").contains(ext)) {
-            return "General/Videos";
-        }
-
-        // Audio
-        if (Arrays.asList("mp3", "wav", "flac", "aac", "ogg", "wma").contains(ext)) {
-            return "General/Audio";
-        }
-
-        // Archives
-        if (Arrays.asList("zip", "rar", "7z", "tar", "gz", "bz2").contains(ext)) {
-            return "General/Archives";
-        }
-
-        // Code Files
-        if (Arrays.asList("java", "py", "cpp", "c", "cs", "js", "html", "css", "php", "sql", "xml", "json").contains(ext)) {
-            return "General/Code";
-        }
-
-        // Executables
-        if (Arrays.asList("exe", "msi", "dmg", "pkg", "deb", "rpm").contains(ext)) {
-            return "General/Executables";
-        }
+        String category = extensionTable.lookup(file.getExtension());
 
         // Unknown extensions → Uncategorized
-        return "Uncategorized";
+        return category != null ? category : "Uncategorized";
     }
 
     public void sortFiles(List<FileInfo> files, String criteria) {
-        Comparator<FileInfo> comparator = switch (criteria) {
-            case "Name" -> Comparator.comparing(FileInfo::getName);
-            case "Size" -> Comparator.comparingLong(FileInfo::getSize);
-            case "Creation Date" -> Comparator.comparing(FileInfo::getCreationDate);
-            case "Last Modified" -> Comparator.comparing(FileInfo::getLastModifiedDate);
-            case "Type" -> Comparator.comparing(FileInfo::getExtension);
-            default -> Comparator.comparing(FileInfo::getName);
-        };
-        mergeSort(files, comparator);
-        logCallback.accept("Sorted files by " + criteria + " using Merge Sort");
+        sortFilesWithAlgorithm(files, criteria, true, "Auto");
+        log.info("Sorted files by " + criteria + " using " + lastSortAlgorithm);
+    }
+
+    /**
+     * Sorts the inventory's rows on their columns; see {@link FileInventory#sort}.
+     */
+    public void sortFiles(FileInventory files, String criteria) {
+        lastSortAlgorithm = "Auto → " + files.sort(criteria, true);
+        log.info("Sorted files by " + criteria + " using " + lastSortAlgorithm);
     }
 
     public void sortFilesWithAlgorithm(List<FileInfo> files, String criteria, boolean ascending, String algorithm) {
         Comparator<FileInfo> comparator = getComparator(criteria, ascending);
+        lastSortAlgorithm = algorithm;
 
         switch (algorithm) {
+            case "Auto" -> lastSortAlgorithm = "Auto → " + autoSort(files, criteria, ascending, comparator);
             case "Bubble Sort" -> bubbleSort(files, comparator);
             case "Selection Sort" -> selectionSort(files, comparator);
             case "Insertion Sort" -> insertionSort(files, comparator);
@@ -354,8 +814,88 @@ public class FileOrganizer {
             case "Counting Sort" -> countingSort(files, criteria, ascending);
             case "Radix Sort" -> radixSort(files, criteria, ascending);
             case "Bucket Sort" -> bucketSort(files, criteria, ascending);
-            default -> mergeSort(files, comparator);
+            default -> {
+                mergeSort(files, comparator);
+                lastSortAlgorithm = "Merge Sort";
+            }
+        }
+    }
+
+    /**
+     * Algorithm used by the last sort; for "Auto" it names the one that was picked.
+     */
+    public String getLastSortAlgorithm() {
+        return lastSortAlgorithm;
+    }
+
+    /**
+     * Samples the list and picks a stable algorithm, so the result is the same whichever
+     * one runs. Presorted or reverse-sorted input goes to TimSort, which merges the existing
+     * runs in close to linear time. Size and dates go to the LSD radix sort. Names and types
+     * go to the MSD radix sort when keys repeat a lot or only one core is available, and to
+     * the parallel merge sort otherwise. Small lists just use TimSort.
+     *
+     * @return the algorithm that was used
+     */
+    private String autoSort(List<FileInfo> list, String criteria, boolean ascending, Comparator<FileInfo> comparator) {
+        int n = list.size();
+        FileInfo[] items = list.toArray(new FileInfo[0]);
+        if (n < AUTO_RADIX_MIN) {
+            Arrays.sort(items, comparator);
+            setAll(list, items);
+            return "TimSort";
+        }
+
+        // Presortedness: direction of adjacent pairs at evenly spaced positions
+        int pairs = Math.min(AUTO_SAMPLE, n - 1);
+        int step = (n - 1) / pairs;
+        int inOrder = 0;
+        int reversed = 0;
+        for (int k = 0; k < pairs; k++) {
+            int cmp = comparator.compare(items[k * step], items[k * step + 1]);
+            if (cmp <= 0) inOrder++;
+            if (cmp >= 0) reversed++;
+        }
+        if (inOrder >= pairs * 0.99 || reversed >= pairs * 0.99) {
+            Arrays.sort(items, comparator);
+            setAll(list, items);
+            return "TimSort (presorted runs)";
+        }
+
+        switch (criteria) {
+            case "Size", "Creation Date", "Last Modified" -> {
+                radixSort(list, criteria, ascending);
+                return "Radix Sort (LSD)";
+            }
+            case "Name", "Type" -> {
+                if (sortParallelism == 1 || n <= parallelSortThreshold || sampledDistinctRatio(items, comparator) < 0.5) {
+                    radixSort(list, criteria, ascending);
+                    return "Radix Sort (MSD)";
+                }
+            }
+            default -> { }
+        }
+        MergeSort.sort(items, comparator, sortParallelism, parallelSortThreshold);
+        setAll(list, items);
+        return "Parallel Merge Sort";
+    }
+
+    /**
+     * Share of distinct keys in an evenly spaced sample; low values mean many equal keys.
+     */
+    private static double sampledDistinctRatio(FileInfo[] items, Comparator<FileInfo> comparator) {
+        int size = Math.min(AUTO_SAMPLE, items.length);
+        int step = items.length / size;
+        FileInfo[] sample = new FileInfo[size];
+        for (int k = 0; k < size; k++) {
+            sample[k] = items[k * step];
+        }
+        Arrays.sort(sample, comparator);
+        int distinct = 1;
+        for (int k = 1; k < size; k++) {
+            if (comparator.compare(sample[k - 1], sample[k]) != 0) distinct++;
         }
+        return (double) distinct / size;
     }
 
     private Comparator<FileInfo> getComparator(String criteria, boolean ascending) {
@@ -408,28 +948,10 @@ public class FileOrganizer {
     }
 
     private void quickSort(List<FileInfo> list, Comparator<FileInfo> comparator) {
-        quickSortHelper(list, 0, list.size() - 1, comparator);
-    }
-
-    private void quickSortHelper(List<FileInfo> list, int low, int high, Comparator<FileInfo> comparator) {
-        if (low < high) {
-            int pi = partition(list, low, high, comparator);
-            quickSortHelper(list, low, pi - 1, comparator);
-            quickSortHelper(list, pi + 1, high, comparator);
-        }
-    }
-
-    private int partition(List<FileInfo> list, int low, int high, Comparator<FileInfo> comparator) {
-        FileInfo pivot = list.get(high);
-        int i = low - 1;
-        for (int j = low; j < high; j++) {
-            if (comparator.compare(list.get(j), pivot) <= 0) {
-                i++;
-                Collections.swap(list, i, j);
-            }
-        }
-        Collections.swap(list, i + 1, high);
-        return i + 1;
+        if (list.size() < 2) return;
+        FileInfo[] items = list.toArray(new FileInfo[0]);
+        IntroSort.sort(items, comparator);
+        setAll(list, items);
     }
 
     private void heapSort(List<FileInfo> list, Comparator<FileInfo> comparator) {
@@ -464,35 +986,45 @@ public class FileOrganizer {
             mergeSort(list, getComparator(criteria, ascending));
             return;
         }
+        int n = list.size();
+        if (n < 2) return;
         long max = list.stream().mapToLong(FileInfo::getSize).max().orElse(0);
         long min = list.stream().mapToLong(FileInfo::getSize).min().orElse(0);
+        // A count table much larger than the list costs more than it saves (and may not fit at all)
+        if (max - min >= (long) n * 4 + 1024) {
+            LongRadixSort.sort(list, FileInfo::getSize, ascending);
+            return;
+        }
         int range = (int) (max - min + 1);
-        int[] count = new int[range];
-        List<FileInfo> output = new ArrayList<>(Collections.nCopies(list.size(), null));
-
-        for (FileInfo file : list) {
-            count[(int) (file.getSize() - min)]++;
+        int[] count = new int[range + 1];
+        FileInfo[] items = list.toArray(new FileInfo[0]);
+        for (FileInfo file : items) {
+            count[countIndex(file, min, max, ascending) + 1]++;
         }
         for (int i = 1; i < count.length; i++) {
             count[i] += count[i - 1];
         }
-        for (int i = list.size() - 1; i >= 0; i--) {
-            FileInfo file = list.get(i);
-            output.set(count[(int) (file.getSize() - min)] - 1, file);
-            count[(int) (file.getSize() - min)]--;
+        // Forward pass into ascending slots (descending indexes from max) keeps equal sizes stable
+        FileInfo[] output = new FileInfo[n];
+        for (FileInfo file : items) {
+            output[count[countIndex(file, min, max, ascending)]++] = file;
         }
-        list.clear();
-        list.addAll(output);
-        if (!ascending) Collections.reverse(list);
+        setAll(list, output);
+    }
+
+    private static int countIndex(FileInfo file, long min, long max, boolean ascending) {
+        return (int) (ascending ? file.getSize() - min : max - file.getSize());
     }
 
     private void radixSort(List<FileInfo> list, String criteria, boolean ascending) {
-        if (!"Name".equals(criteria)) {
-            mergeSort(list, getComparator(criteria, ascending));
-            return;
+        switch (criteria) {
+            case "Name" -> NameRadixSort.sort(list, FileInfo::getName, ascending);
+            case "Type" -> NameRadixSort.sort(list, FileInfo::getExtension, ascending);
+            case "Size" -> LongRadixSort.sort(list, FileInfo::getSize, ascending);
+            case "Creation Date" -> LongRadixSort.sortByDate(list, FileInfo::getCreationDate, ascending);
+            case "Last Modified" -> LongRadixSort.sortByDate(list, FileInfo::getLastModifiedDate, ascending);
+            default -> mergeSort(list, getComparator(criteria, ascending));
         }
-        // Simple radix sort for strings
-        list.sort(ascending ? Comparator.comparing(FileInfo::getName) : Comparator.comparing(FileInfo::getName).reversed());
     }
 
     private void bucketSort(List<FileInfo> list, String criteria, boolean ascending) {
@@ -501,78 +1033,197 @@ public class FileOrganizer {
             return;
         }
         int n = list.size();
-        if (n <= 0) return;
-        long max = list.stream().mapToLong(FileInfo::getSize).max().orElse(0);
-        long min = list.stream().mapToLong(FileInfo::getSize).min().orElse(0);
-        int bucketCount = 10;
-        List<List<FileInfo>> buckets = new ArrayList<>();
-        for (int i = 0; i < bucketCount; i++) {
-            buckets.add(new ArrayList<>());
+        if (n < 2) return;
+        FileInfo[] items = list.toArray(new FileInfo[0]);
+        long max = Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+        for (FileInfo file : items) {
+            max = Math.max(max, file.getSize());
+            min = Math.min(min, file.getSize());
+        }
+        // One bucket per file over the size range; descending fills the buckets from the top
+        double scale = n / ((double) (max - min) + 1);
+        int[] bucketOf = new int[n];
+        int[] start = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int bucket = Math.min(n - 1, (int) ((items[i].getSize() - min) * scale));
+            bucketOf[i] = ascending ? bucket : n - 1 - bucket;
+            start[bucketOf[i] + 1]++;
         }
-        for (FileInfo file : list) {
-            int bucketIndex = (int) ((file.getSize() - min) * (bucketCount - 1) / (max - min + 1));
-            buckets.get(bucketIndex).add(file);
+        for (int b = 0; b < n; b++) {
+            start[b + 1] += start[b];
         }
-        list.clear();
-        for (List<FileInfo> bucket : buckets) {
-            insertionSort(bucket, Comparator.comparingLong(FileInfo::getSize));
-            list.addAll(bucket);
+        FileInfo[] sorted = new FileInfo[n];
+        int[] next = Arrays.copyOf(start, n);
+        for (int i = 0; i < n; i++) {
+            sorted[next[bucketOf[i]]++] = items[i];
         }
-        if (!ascending) Collections.reverse(list);
+        List<FileInfo> output = Arrays.asList(sorted);
+        Comparator<FileInfo> bySize = getComparator("Size", ascending);
+        for (int b = 0; b < n; b++) {
+            // Small buckets use insertion sort; a crowded bucket (skewed sizes) must not go quadratic
+            List<FileInfo> bucket = output.subList(start[b], start[b + 1]);
+            if (bucket.size() <= BUCKET_INSERTION_LIMIT) {
+                insertionSort(bucket, bySize);
+            } else {
+                LongRadixSort.sort(bucket, FileInfo::getSize, ascending);
+            }
+        }
+        setAll(list, sorted);
     }
 
     private void mergeSort(List<FileInfo> list, Comparator<FileInfo> comparator) {
         if (list.size() < 2) return;
-        int mid = list.size() / 2;
-        List<FileInfo> left = new ArrayList<>(list.subList(0, mid));
-        List<FileInfo> right = new ArrayList<>(list.subList(mid, list.size()));
+        FileInfo[] items = list.toArray(new FileInfo[0]);
+        MergeSort.sort(items, comparator, sortParallelism, parallelSortThreshold);
+        setAll(list, items);
+    }
 
-        mergeSort(left, comparator);
-        mergeSort(right, comparator);
+    private static void setAll(List<FileInfo> list, FileInfo[] items) {
+        ListIterator<FileInfo> it = list.listIterator();
+        for (FileInfo item : items) {
+            it.next();
+            it.set(item);
+        }
+    }
 
-        merge(list, left, right, comparator);
+    /**
+     * Moves each file into {@code outputDir/<category>} and updates its path. See FileMover.
+     */
+    public void organizeFiles(List<FileInfo> files, Path outputDir) throws IOException {
+        if (journal == null) {
+            new FileMover(moveParallelism, log).organize(files, outputDir, null);
+            return;
+        }
+        try (MoveJournal.Batch batch = journal.begin(MoveJournal.Kind.ORGANIZE)) {
+            new FileMover(moveParallelism, log).organize(files, outputDir, batch);
+        }
     }
 
-    private void merge(List<FileInfo> list, List<FileInfo> left, List<FileInfo> right, Comparator<FileInfo> comparator) {
-        int i = 0, j = 0, k = 0;
-        while (i < left.size() && j < right.size()) {
-            if (comparator.compare(left.get(i), right.get(j)) <= 0) {
-                list.set(k++, left.get(i++));
-            } else {
-                list.set(k++, right.get(j++));
+    /**
+     * Undoes the most recent organize, and any recovery made after it, by moving every file
+     * back to the exact path it was moved from.
+     *
+     * @return moved-to path → original path, for every file put back
+     */
+    public Map<Path, Path> undoLastOrganize() throws IOException {
+        if (journal == null) return new HashMap<>();
+        List<MoveJournal.Operation> pending = journal.pending();
+        int last = pending.size() - 1;
+        while (last >= 0 && pending.get(last).kind != MoveJournal.Kind.ORGANIZE) last--;
+        if (last < 0) return new HashMap<>();
+        return journal.undo(pending.subList(last, pending.size()), moveParallelism, log);
+    }
+
+    /**
+     * Puts every journaled duplicate removal back where it was, then falls back to
+     * restoreFromRecovery for anything left in the recovery folder from before the journal.
+     *
+     * @return the restored files
+     */
+    public List<FileInfo> undoRecoveries(Path recoveryDir, Path targetDir) throws IOException {
+        List<FileInfo> restored = new ArrayList<>();
+        List<MoveJournal.Operation> recoveries = new ArrayList<>();
+        if (journal != null) {
+            for (MoveJournal.Operation operation : journal.pending()) {
+                if (operation.kind == MoveJournal.Kind.RECOVERY) recoveries.add(operation);
+            }
+            for (Path original : journal.undo(recoveries, moveParallelism, log).values()) {
+                try {
+                    restored.add(toFileInfo(original, Files.readAttributes(original, BasicFileAttributes.class)));
+                } catch (IOException e) {
+                    log.warn("Failed to recover file: " + original.getFileName() + " - " + e.getMessage());
+                }
             }
         }
-        while (i < left.size()) list.set(k++, left.get(i++));
-        while (j < right.size()) list.set(k++, right.get(j++));
+        if (recoveries.isEmpty() && Files.isDirectory(recoveryDir)) {
+            restored.addAll(restoreFromRecovery(recoveryDir, targetDir));
+        }
+        return restored;
     }
 
-    public void organizeFiles(List<FileInfo> files, Path outputDir) throws IOException {
-        Files.createDirectories(outputDir);
-        for (FileInfo file : files) {
-            String category = file.getCategory();
-            Path categoryDir = outputDir.resolve(category);
-            Files.createDirectories(categoryDir);
-            Path target = categoryDir.resolve(file.getName());
-            // Handle conflicts
-            if (Files.exists(target)) {
-                target = resolveConflict(target);
+    /**
+     * Moves files into the recovery folder instead of deleting them, renaming clashes to
+     * {@code base_recN.ext}. Files that fail to move are logged and skipped. The moves are
+     * journaled, so undoRecoveries puts each file back at its exact original path.
+     *
+     * @return the files that were moved, with their paths pointing into the recovery folder
+     */
+    public List<FileInfo> moveToRecovery(List<FileInfo> files, Path recoveryDir) throws IOException {
+        Files.createDirectories(recoveryDir);
+        NameRegistry names = NameRegistry.of(recoveryDir);
+        Path[] targets = new Path[files.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = names.claim(files.get(i).getPath().getFileName().toString(), "_rec");
+        }
+        MoveJournal.Batch batch = journal != null ? journal.begin(MoveJournal.Kind.RECOVERY) : null;
+        List<FileInfo> moved = new ArrayList<>(files.size());
+        try {
+            if (batch != null) {
+                for (int i = 0; i < targets.length; i++) {
+                    batch.record(files.get(i).getPath(), targets[i]);
+                }
+                batch.sync();
+            }
+            for (int i = 0; i < targets.length; i++) {
+                FileInfo file = files.get(i);
+                Path source = file.getPath();
+                try {
+                    try {
+                        Files.move(source, targets[i]);
+                    } catch (FileAlreadyExistsException e) {
+                        targets[i] = names.claimOnDisk(source.getFileName().toString(), "_rec");
+                        if (batch != null) {
+                            batch.record(source, targets[i]);
+                            batch.sync();
+                        }
+                        Files.move(source, targets[i]);
+                    }
+                    file.setPath(targets[i]);
+                    moved.add(file);
+                    duplicatesRemoved++;
+                    spaceRecovered += file.getSize();
+                } catch (IOException e) {
+                    log.warn("Failed to move file: " + file.getName() + " - " + e.getMessage());
+                }
+            }
+        } finally {
+            if (batch != null) batch.close();
+        }
+        return moved;
+    }
+
+    /**
+     * Moves everything in the recovery folder back into {@code targetDir}, dropping the _recN
+     * suffix and renaming clashes to {@code base_restoredN.ext}. Deletes the recovery folder
+     * once it is empty.
+     *
+     * @return the restored files
+     */
+    public List<FileInfo> restoreFromRecovery(Path recoveryDir, Path targetDir) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(recoveryDir)) {
+            for (Path entry : stream) {
+                entries.add(entry);
             }
-            Files.move(file.getPath(), target);
-            logCallback.accept("Moved " + file.getName() + " to " + target.toString());
-        }
-    }
-
-    private Path resolveConflict(Path target) {
-        String name = target.getFileName().toString();
-        String base = name.substring(0, name.lastIndexOf('.'));
-        String ext = name.substring(name.lastIndexOf('.'));
-        int counter = 1;
-        Path newTarget;
-        do {
-            newTarget = target.getParent().resolve(base + "_" + counter + ext);
-            counter++;
-        } while (Files.exists(newTarget));
-        return newTarget;
+        }
+        NameRegistry names = NameRegistry.of(targetDir);
+        List<FileInfo> restored = new ArrayList<>(entries.size());
+        for (Path entry : entries) {
+            try {
+                String originalName = entry.getFileName().toString().replaceAll("_rec\\d+", "");
+                Path target = names.move(entry, originalName, "_restored");
+                restored.add(toFileInfo(target, Files.readAttributes(target, BasicFileAttributes.class)));
+            } catch (IOException e) {
+                log.warn("Failed to recover file: " + entry.getFileName() + " - " + e.getMessage());
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(recoveryDir)) {
+            if (!stream.iterator().hasNext()) {
+                Files.delete(recoveryDir);
+            }
+        }
+        return restored;
     }
 
     public int getDuplicatesRemoved() {
@@ -0,0 +1,60 @@
+package com.sortify;
+
+import java.util.Locale;
+
+/**
+ * Splits a file name into keyword tokens without building intermediate strings.
+ * Produces exactly the tokens of
+ * {@code name.toLowerCase().replaceAll("[^a-zA-Z0-9]", " ").split("\\s+")}:
+ * maximal runs of a-z/0-9, preceded by an empty token when the name starts with a separator
+ * (and a single empty token for an empty name). Tokens are reported as spans of the source
+ * text. On the common path (ASCII name, locale with standard ASCII case mapping) the spans
+ * point into the original name and may contain upper-case ASCII, which the consumer folds.
+ * Any other name is lower-cased once up front, exactly like String.toLowerCase().
+ */
+final class FilenameTokenizer {
+
+    interface TokenSink {
+        void token(CharSequence text, int start, int end);
+    }
+
+    private FilenameTokenizer() {
+    }
+
+    static void tokenize(String name, TokenSink sink) {
+        String text = needsFullLowerCase(name) ? name.toLowerCase() : name;
+        int length = text.length();
+        if (length == 0) {
+            sink.token(text, 0, 0);
+            return;
+        }
+        boolean leadingSeparator = !isTokenChar(text.charAt(0));
+        int i = 0;
+        while (i < length) {
+            while (i < length && !isTokenChar(text.charAt(i))) i++;
+            if (i == length) break;
+            int start = i;
+            while (i < length && isTokenChar(text.charAt(i))) i++;
+            if (leadingSeparator) {
+                sink.token(text, 0, 0);
+                leadingSeparator = false;
+            }
+            sink.token(text, start, i);
+        }
+    }
+
+    static boolean isTokenChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9');
+    }
+
+    private static boolean needsFullLowerCase(String name) {
+        String language = Locale.getDefault().getLanguage();
+        if ("tr".equals(language) || "az".equals(language)) {
+            return true; // dotted/dotless i: 'I' does not lower-case to 'i'
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,189 @@
+package com.sortify;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent index of file digests keyed by path, size, modification time and file key.
+ * Unchanged files are looked up instead of rehashed. The index is an LRU map bounded by
+ * {@code maxEntries}, and it is saved by writing a temporary file and atomically
+ * renaming it over the old one, so a crash never leaves a half-written cache behind.
+ * Thread-safe.
+ */
+public class HashCache {
+
+    private static final int MAGIC = 0x53484331; // "SHC1"
+    private static final int DIGEST_LENGTH = 32;
+
+    private final Path file;
+    private final Map<String, Entry> entries;
+    private boolean loaded = false;
+    private boolean dirty = false;
+
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        final String fileKey;
+        byte[] sample;
+        byte[] full;
+
+        Entry(long size, long lastModified, String fileKey) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size()
+                && lastModified == attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)
+                && fileKey.equals(fileKeyOf(attrs));
+        }
+    }
+
+    public HashCache(Path file, int maxEntries) {
+        this.file = file;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized String getFull(Path path, BasicFileAttributes attrs) {
+        Entry entry = lookup(path, attrs);
+        return entry != null && entry.full != null ? HashEngine.toHex(entry.full) : null;
+    }
+
+    public synchronized String getSample(Path path, BasicFileAttributes attrs) {
+        Entry entry = lookup(path, attrs);
+        return entry != null && entry.sample != null ? HashEngine.toHex(entry.sample) : null;
+    }
+
+    public synchronized void putFull(Path path, BasicFileAttributes attrs, String hash) {
+        entryFor(path, attrs).full = fromHex(hash);
+        dirty = true;
+    }
+
+    public synchronized void putSample(Path path, BasicFileAttributes attrs, String hash) {
+        entryFor(path, attrs).sample = fromHex(hash);
+        dirty = true;
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    private Entry lookup(Path path, BasicFileAttributes attrs) {
+        ensureLoaded();
+        Entry entry = entries.get(keyOf(path));
+        return entry != null && entry.matches(attrs) ? entry : null;
+    }
+
+    private Entry entryFor(Path path, BasicFileAttributes attrs) {
+        Entry entry = lookup(path, attrs);
+        if (entry == null) {
+            entry = new Entry(attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS), fileKeyOf(attrs));
+            entries.put(keyOf(path), entry);
+        }
+        return entry;
+    }
+
+    private static String keyOf(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    private static String fileKeyOf(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        return key != null ? key.toString() : "";
+    }
+
+    /**
+     * Writes the cache if anything changed since it was loaded or last saved.
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) return;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                writeString(out, e.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                writeString(out, entry.fileKey);
+                writeDigest(out, entry.sample);
+                writeDigest(out, entry.full);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) return;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                Entry entry = new Entry(in.readLong(), in.readLong(), readString(in));
+                entry.sample = readDigest(in);
+                entry.full = readDigest(in);
+                entries.put(key, entry);
+            }
+        } catch (IOException e) {
+            // Unreadable cache: start over, it will be rewritten on the next save
+            entries.clear();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 16) throw new IOException("Corrupt hash cache");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDigest(DataOutputStream out, byte[] digest) throws IOException {
+        out.writeBoolean(digest != null);
+        if (digest != null) out.write(digest);
+    }
+
+    private static byte[] readDigest(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        byte[] digest = new byte[DIGEST_LENGTH];
+        in.readFully(digest);
+        return digest;
+    }
+
+    static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex, i * 2, i * 2 + 2, 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,125 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Streaming SHA-256 engine used by duplicate detection.
+ * Files are read through one reusable direct buffer, so memory use stays
+ * constant no matter how large the file is. Not thread-safe: use one engine per worker.
+ */
+public class HashEngine {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long MAP_REGION_SIZE = 64L << 20;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+    private final ByteBuffer buffer;
+    private long memoryMapThreshold = Long.MAX_VALUE;
+    private long bytesHashed = 0;
+
+    public HashEngine() throws NoSuchAlgorithmException {
+        this.digest = MessageDigest.getInstance("SHA-256");
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Files at least this large are hashed through memory-mapped regions
+     * instead of the read buffer. Disabled (Long.MAX_VALUE) by default.
+     */
+    public void setMemoryMapThreshold(long memoryMapThreshold) {
+        this.memoryMapThreshold = memoryMapThreshold;
+    }
+
+    public long getBytesHashed() {
+        return bytesHashed;
+    }
+
+    /**
+     * Computes the SHA-256 digest of the whole file.
+     */
+    public byte[] digest(Path file) throws IOException {
+        digest.reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= memoryMapThreshold) {
+                updateMapped(channel, size);
+            } else {
+                updateStreamed(channel);
+            }
+        }
+        return digest.digest();
+    }
+
+    public String hash(Path file) throws IOException {
+        return toHex(digest(file));
+    }
+
+    /**
+     * Computes a digest over the first and last {@code sampleSize} bytes only.
+     * Callers are expected to have grouped by size already, so the length is not mixed in.
+     */
+    public byte[] digestSample(Path file, int sampleSize) throws IOException {
+        digest.reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            updateRange(channel, 0, Math.min(sampleSize, size));
+            long tailStart = Math.max(sampleSize, size - sampleSize);
+            updateRange(channel, tailStart, size - tailStart);
+        }
+        return digest.digest();
+    }
+
+    public String hashSample(Path file, int sampleSize) throws IOException {
+        return toHex(digestSample(file, sampleSize));
+    }
+
+    private void updateRange(FileChannel channel, long position, long length) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read == -1) break;
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+            bytesHashed += read;
+        }
+    }
+
+    private void updateStreamed(FileChannel channel) throws IOException {
+        buffer.clear();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            bytesHashed += buffer.remaining();
+            digest.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    private void updateMapped(FileChannel channel, long size) throws IOException {
+        for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+            long length = Math.min(MAP_REGION_SIZE, size - position);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            digest.update(region);
+            bytesHashed += length;
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,124 @@
+package com.sortify;
+
+import java.util.Comparator;
+
+/**
+ * Introsort: quicksort with a heapsort fallback, not stable.
+ * Pivots are the median of three elements, or the ninther (median of three medians)
+ * on larger ranges, so sorted and reversed input partition evenly. Partitioning is
+ * three-way, so runs of equal keys (same size, same extension) are finished in one
+ * pass instead of degrading. The smaller side recurses and the larger side loops,
+ * which bounds the stack at O(log n). Past 2·log2(n) levels the range is heapsorted,
+ * which caps the worst case at O(n log n). Ranges of 24 or fewer use insertion sort.
+ */
+final class IntroSort {
+
+    private static final int INSERTION_THRESHOLD = 24;
+    private static final int NINTHER_THRESHOLD = 128;
+
+    private IntroSort() {
+    }
+
+    static <T> void sort(T[] a, Comparator<? super T> comparator) {
+        int n = a.length;
+        if (n < 2) return;
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(n));
+        sort(a, 0, n, depthLimit, comparator);
+    }
+
+    private static <T> void sort(T[] a, int lo, int hi, int depthLimit, Comparator<? super T> comparator) {
+        while (hi - lo > INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(a, lo, hi, comparator);
+                return;
+            }
+            T pivot = choosePivot(a, lo, hi, comparator);
+
+            // [lo, lt) < pivot, [lt, i) == pivot, (gt, hi) > pivot
+            int lt = lo, i = lo, gt = hi - 1;
+            while (i <= gt) {
+                int cmp = comparator.compare(a[i], pivot);
+                if (cmp < 0) {
+                    swap(a, lt++, i++);
+                } else if (cmp > 0) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            if (lt - lo < hi - gt - 1) {
+                sort(a, lo, lt, depthLimit, comparator);
+                lo = gt + 1;
+            } else {
+                sort(a, gt + 1, hi, depthLimit, comparator);
+                hi = lt;
+            }
+        }
+        insertionSort(a, lo, hi, comparator);
+    }
+
+    private static <T> T choosePivot(T[] a, int lo, int hi, Comparator<? super T> comparator) {
+        int last = hi - 1;
+        int mid = (lo + hi) >>> 1;
+        if (hi - lo > NINTHER_THRESHOLD) {
+            int step = (hi - lo) / 8;
+            int first = median(a, lo, lo + step, lo + 2 * step, comparator);
+            int middle = median(a, mid - step, mid, mid + step, comparator);
+            int third = median(a, last - 2 * step, last - step, last, comparator);
+            return a[median(a, first, middle, third, comparator)];
+        }
+        return a[median(a, lo, mid, last, comparator)];
+    }
+
+    private static <T> int median(T[] a, int i, int j, int k, Comparator<? super T> comparator) {
+        if (comparator.compare(a[i], a[j]) < 0) {
+            if (comparator.compare(a[j], a[k]) < 0) return j;
+            return comparator.compare(a[i], a[k]) < 0 ? k : i;
+        }
+        if (comparator.compare(a[k], a[j]) < 0) return j;
+        return comparator.compare(a[k], a[i]) < 0 ? k : i;
+    }
+
+    private static <T> void heapSort(T[] a, int lo, int hi, Comparator<? super T> comparator) {
+        int n = hi - lo;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, lo, i, n, comparator);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, lo, lo + end);
+            siftDown(a, lo, 0, end, comparator);
+        }
+    }
+
+    private static <T> void siftDown(T[] a, int base, int i, int n, Comparator<? super T> comparator) {
+        T value = a[base + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && comparator.compare(a[base + child + 1], a[base + child]) > 0) child++;
+            if (comparator.compare(a[base + child], value) <= 0) break;
+            a[base + i] = a[base + child];
+            i = child;
+        }
+        a[base + i] = value;
+    }
+
+    private static <T> void insertionSort(T[] a, int lo, int hi, Comparator<? super T> comparator) {
+        for (int i = lo + 1; i < hi; i++) {
+            T key = a[i];
+            int j = i - 1;
+            while (j >= lo && comparator.compare(a[j], key) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+
+    private static <T> void swap(T[] a, int i, int j) {
+        T t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
@@ -0,0 +1,236 @@
+package com.sortify;
+
+import java.util.*;
+
+/**
+ * Compiled form of the name-classification keyword tables.
+ * A token scores a keyword's weight when the token contains the keyword or the keyword
+ * contains the token. The first case uses an Aho-Corasick automaton over all keywords.
+ * The second walks a trie of every keyword suffix, whose nodes carry the set of
+ * keywords containing that substring. Both are built once. Scoring goes through a
+ * reusable {@link Scorer} fed by {@link FilenameTokenizer}, so a classification
+ * allocates nothing besides its result.
+ */
+final class KeywordMatcher {
+
+    private static final int ALPHABET = 36; // a-z, 0-9
+
+    private final String[] categories;
+    private final int[] categoryHash;
+    private final int[] totalWeight;
+    private final int[] keywordCategory;
+    private final int[] keywordWeight;
+    private final int words;
+
+    // Aho-Corasick automaton: dense goto table with failure links folded in
+    private final int[] acNext;
+    private final long[] acOutput;
+
+    // Trie of all keyword suffixes; each node lists the keywords containing that substring
+    private final int[] subNext;
+    private final long[] subMask;
+
+    /**
+     * @param keywords category name → keyword weights; iteration order is the tie-break order
+     */
+    KeywordMatcher(LinkedHashMap<String, Map<String, Integer>> keywords) {
+        int categoryCount = keywords.size();
+        categories = new String[categoryCount];
+        categoryHash = new int[categoryCount];
+        totalWeight = new int[categoryCount];
+        List<String> keywordText = new ArrayList<>();
+        List<Integer> owner = new ArrayList<>();
+        List<Integer> weight = new ArrayList<>();
+        int c = 0;
+        for (Map.Entry<String, Map<String, Integer>> category : keywords.entrySet()) {
+            categories[c] = category.getKey();
+            int h = category.getKey().hashCode();
+            categoryHash[c] = h ^ (h >>> 16);
+            for (Map.Entry<String, Integer> keyword : category.getValue().entrySet()) {
+                keywordText.add(keyword.getKey());
+                owner.add(c);
+                weight.add(keyword.getValue());
+                totalWeight[c] += keyword.getValue();
+            }
+            c++;
+        }
+        int keywordCount = keywordText.size();
+        keywordCategory = new int[keywordCount];
+        keywordWeight = new int[keywordCount];
+        for (int k = 0; k < keywordCount; k++) {
+            keywordCategory[k] = owner.get(k);
+            keywordWeight[k] = weight.get(k);
+        }
+        words = Math.max(1, (keywordCount + 63) >>> 6);
+
+        // Aho-Corasick goto/fail construction
+        List<int[]> gotoRows = new ArrayList<>();
+        List<long[]> outputs = new ArrayList<>();
+        gotoRows.add(newRow());
+        outputs.add(new long[words]);
+        for (int k = 0; k < keywordCount; k++) {
+            int state = 0;
+            for (char ch : keywordText.get(k).toCharArray()) {
+                int symbol = symbol(ch);
+                if (gotoRows.get(state)[symbol] < 0) {
+                    gotoRows.get(state)[symbol] = gotoRows.size();
+                    gotoRows.add(newRow());
+                    outputs.add(new long[words]);
+                }
+                state = gotoRows.get(state)[symbol];
+            }
+            outputs.get(state)[k >>> 6] |= 1L << k;
+        }
+        int states = gotoRows.size();
+        int[] fail = new int[states];
+        acNext = new int[states * ALPHABET];
+        acOutput = new long[states * words];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < ALPHABET; s++) {
+            int child = gotoRows.get(0)[s];
+            acNext[s] = child < 0 ? 0 : child;
+            if (child > 0) queue.add(child);
+        }
+        System.arraycopy(outputs.get(0), 0, acOutput, 0, words);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int w = 0; w < words; w++) {
+                acOutput[state * words + w] = outputs.get(state)[w] | acOutput[fail[state] * words + w];
+            }
+            for (int s = 0; s < ALPHABET; s++) {
+                int child = gotoRows.get(state)[s];
+                if (child < 0) {
+                    acNext[state * ALPHABET + s] = acNext[fail[state] * ALPHABET + s];
+                } else {
+                    fail[child] = acNext[fail[state] * ALPHABET + s];
+                    acNext[state * ALPHABET + s] = child;
+                    queue.add(child);
+                }
+            }
+        }
+
+        // Suffix trie: every path from the root spells a substring of some keyword
+        List<int[]> subRows = new ArrayList<>();
+        List<long[]> masks = new ArrayList<>();
+        subRows.add(newRow());
+        masks.add(new long[words]);
+        for (int k = 0; k < keywordCount; k++) {
+            char[] chars = keywordText.get(k).toCharArray();
+            for (int start = 0; start < chars.length; start++) {
+                int node = 0;
+                for (int i = start; i < chars.length; i++) {
+                    int symbol = symbol(chars[i]);
+                    if (subRows.get(node)[symbol] < 0) {
+                        subRows.get(node)[symbol] = subRows.size();
+                        subRows.add(newRow());
+                        masks.add(new long[words]);
+                    }
+                    node = subRows.get(node)[symbol];
+                    masks.get(node)[k >>> 6] |= 1L << k;
+                }
+            }
+        }
+        subNext = new int[subRows.size() * ALPHABET];
+        subMask = new long[subRows.size() * words];
+        for (int node = 0; node < subRows.size(); node++) {
+            System.arraycopy(subRows.get(node), 0, subNext, node * ALPHABET, ALPHABET);
+            System.arraycopy(masks.get(node), 0, subMask, node * words, words);
+        }
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int symbol(char ch) {
+        if (ch >= 'a' && ch <= 'z') return ch - 'a';
+        if (ch >= 'A' && ch <= 'Z') return ch - 'A';
+        if (ch >= '0' && ch <= '9') return 26 + (ch - '0');
+        return -1;
+    }
+
+    Scorer newScorer() {
+        return new Scorer();
+    }
+
+    /**
+     * Per-thread scoring state. Feed it the tokens of one name, then ask for the best category.
+     */
+    final class Scorer implements FilenameTokenizer.TokenSink {
+        private final int[] scores = new int[categories.length];
+        private final long[] matched = new long[words];
+
+        void reset() {
+            Arrays.fill(scores, 0);
+        }
+
+        /**
+         * Scores the token {@code text[start, end)}; tokens consist of ASCII letters and digits,
+         * and upper-case letters are folded.
+         */
+        @Override
+        public void token(CharSequence text, int start, int end) {
+            if (start == end) {
+                // An empty token is contained in every keyword
+                for (int c = 0; c < scores.length; c++) scores[c] += totalWeight[c];
+                return;
+            }
+            Arrays.fill(matched, 0);
+
+            // Keywords contained in the token
+            int state = 0;
+            for (int i = start; i < end; i++) {
+                int symbol = symbol(text.charAt(i));
+                state = symbol < 0 ? 0 : acNext[state * ALPHABET + symbol];
+                for (int w = 0; w < words; w++) matched[w] |= acOutput[state * words + w];
+            }
+
+            // Keywords containing the token
+            int node = 0;
+            for (int i = start; i < end && node >= 0; i++) {
+                int symbol = symbol(text.charAt(i));
+                node = symbol < 0 ? -1 : subNext[node * ALPHABET + symbol];
+            }
+            if (node >= 0) {
+                for (int w = 0; w < words; w++) matched[w] |= subMask[node * words + w];
+            }
+
+            for (int w = 0; w < words; w++) {
+                long bits = matched[w];
+                while (bits != 0) {
+                    int k = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    scores[keywordCategory[k]] += keywordWeight[k];
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        /**
+         * Highest-scoring category, or null when nothing scored at least {@code threshold}.
+         * Ties go to the category a HashMap of the positive scores would iterate first
+         * (bucket index, then insertion order), which is how the original
+         * stream().max() over a HashMap picked its winner.
+         */
+        String best(int threshold) {
+            int positive = 0;
+            for (int score : scores) {
+                if (score > 0) positive++;
+            }
+            if (positive == 0) return null;
+            int tableSize = 16;
+            while (positive > tableSize * 3 / 4) tableSize <<= 1;
+
+            int best = -1;
+            for (int c = 0; c < scores.length; c++) {
+                if (scores[c] <= 0) continue;
+                if (best < 0 || scores[c] > scores[best]
+                    || (scores[c] == scores[best] && (categoryHash[c] & (tableSize - 1)) < (categoryHash[best] & (tableSize - 1)))) {
+                    best = c;
+                }
+            }
+            return scores[best] >= threshold ? categories[best] : null;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps a finished scan current by watching the scanned tree.
+ * Every scanned directory is registered with a WatchService. Events are coalesced: after
+ * the first one the watcher keeps draining until the tree has been quiet for a moment (or
+ * a batch has been open too long), then re-reads each touched path once. That applies the
+ * net effect of an event storm as one set of deltas to the scan's inventory: rows are
+ * found by path, changed in place, appended, and removed together at the end of the batch.
+ * When the service reports OVERFLOW, the directory whose events were lost is rescanned and
+ * diffed against the inventory instead. Disk reads and rescans run outside the index lock;
+ * only merging their results takes it.
+ */
+final class LiveIndex implements AutoCloseable {
+
+    private static final long QUIET_MILLIS = 200;
+    private static final long MAX_BATCH_MILLIS = 2000;
+
+    /**
+     * One applied batch, as views of the inventory's rows; removed ones read as empty.
+     * Modified files keep their row; their hash is cleared.
+     */
+    static final class Changes {
+        final List<FileInfo> added = new ArrayList<>();
+        final List<FileInfo> removed = new ArrayList<>();
+        final List<FileInfo> modified = new ArrayList<>();
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+        }
+    }
+
+    private final Path root;
+    private final int parallelism;
+    private final boolean includeSubfolders;
+    private final boolean includeHidden;
+    private final BiFunction<Path, BasicFileAttributes, FileInfo> mapper;
+    private final Consumer<FileInfo> classifier;
+    private final Consumer<Changes> listener;
+    private final LogSink log;
+    private final Class<? extends BasicFileAttributes> attributeType = DirectoryWalker.attributeType();
+
+    private final FileInventory inventory;
+    private final Set<FileInfo> removing = new HashSet<>(); // rows to drop when the batch is merged
+    private final Map<Path, WatchKey> watchedDirectories = new HashMap<>();
+
+    private WatchService watcher;
+    private Thread thread;
+
+    /**
+     * @param scan the scan to keep current; its inventory is updated in place
+     * @param classifier assigns a category to new and modified files, may be null
+     * @param listener receives each non-empty batch on the watch thread
+     */
+    LiveIndex(Path root, ScanResult scan, int parallelism, boolean includeSubfolders, boolean includeHidden,
+              BiFunction<Path, BasicFileAttributes, FileInfo> mapper, Consumer<FileInfo> classifier,
+              Consumer<Changes> listener, LogSink log) {
+        this.root = root;
+        this.parallelism = parallelism;
+        this.includeSubfolders = includeSubfolders;
+        this.includeHidden = includeHidden;
+        this.mapper = mapper;
+        this.classifier = classifier;
+        this.listener = listener;
+        this.log = log;
+        this.inventory = scan.getInventory();
+    }
+
+    /**
+     * Registers the tree and starts the watch thread. Changes made between the scan and this
+     * call are not seen until the paths are touched again.
+     */
+    synchronized void start() throws IOException {
+        if (watcher != null) return;
+        watcher = root.getFileSystem().newWatchService();
+        int directories = register(root);
+        thread = new Thread(this::run, "sortify-watch");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching " + directories + " folders under " + root);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher == null) return;
+        watcher.close();
+        watcher = null;
+        watchedDirectories.clear();
+        thread.interrupt();
+    }
+
+    private void run() {
+        WatchService service;
+        synchronized (this) {
+            service = watcher;
+        }
+        try {
+            while (true) {
+                Set<Path> touched = new LinkedHashSet<>();
+                Set<Path> overflowed = new LinkedHashSet<>();
+                collect(service.take(), touched, overflowed);
+                long deadline = System.currentTimeMillis() + MAX_BATCH_MILLIS;
+                WatchKey key;
+                while (System.currentTimeMillis() < deadline && (key = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, touched, overflowed);
+                }
+                Changes changes = apply(touched, overflowed);
+                if (!changes.isEmpty()) {
+                    listener.accept(changes);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private synchronized void collect(WatchKey key, Set<Path> touched, Set<Path> overflowed) {
+        Path directory = (Path) key.watchable();
+        boolean current = watchedDirectories.get(directory) == key;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (!current) continue;
+            if (event.kind() == OVERFLOW) {
+                overflowed.add(directory);
+            } else {
+                touched.add(directory.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset() && current) {
+            // The directory itself is gone or unreadable
+            watchedDirectories.remove(directory);
+            touched.add(directory);
+        }
+    }
+
+    /**
+     * Reads the touched paths and rescans the overflowed folders without holding the lock,
+     * so close() on the FX thread never waits on disk. Only merging the results into the
+     * inventory is synchronized.
+     */
+    private Changes apply(Set<Path> touched, Set<Path> overflowed) {
+        List<Path> rescans = new ArrayList<>();
+        for (Path directory : overflowed) {
+            if (rescans.stream().noneMatch(directory::startsWith)) {
+                rescans.removeIf(other -> other.startsWith(directory));
+                rescans.add(directory);
+            }
+        }
+        Map<Path, Collection<FileInfo>> walked = new LinkedHashMap<>();
+        Map<Path, FileInfo> refreshed = new LinkedHashMap<>(); // null once the path is gone
+        for (Path directory : rescans) {
+            walk(directory, walked);
+        }
+        for (Path path : touched) {
+            if (rescans.stream().noneMatch(path::startsWith)) {
+                read(path, refreshed, walked);
+            }
+        }
+
+        synchronized (this) {
+            Changes changes = new Changes();
+            if (watcher == null) return changes;
+            walked.forEach((directory, found) -> merge(directory, found, changes));
+            refreshed.forEach((path, file) -> {
+                if (file == null) {
+                    remove(inventory.lookup(path), changes);
+                    removeSubtree(path, changes);
+                } else {
+                    upsert(file, changes);
+                }
+            });
+            inventory.removeAll(removing);
+            removing.clear();
+            if (!changes.isEmpty()) {
+                log.info("Live update: " + changes.added.size() + " added, " + changes.modified.size() + " modified, "
+                    + changes.removed.size() + " removed" + (rescans.isEmpty() ? "" : " (" + rescans.size() + " folders rescanned)"));
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Re-reads one path named by an event.
+     */
+    private void read(Path path, Map<Path, FileInfo> refreshed, Map<Path, Collection<FileInfo>> walked) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, attributeType, LinkOption.NOFOLLOW_LINKS);
+            if (attrs.isSymbolicLink()) {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) attrs = null;
+            }
+        } catch (NoSuchFileException e) {
+            attrs = null;
+        } catch (IOException e) {
+            log.warn("Could not read " + path + " - " + e.getMessage());
+            return;
+        }
+        if (attrs == null) {
+            refreshed.put(path, null);
+        } else if (attrs.isDirectory()) {
+            if (includeSubfolders && !isWatched(path)) {
+                walk(path, walked); // a new folder may have filled up before it was registered
+            }
+        } else if (attrs.isRegularFile() && (includeHidden || !DirectoryWalker.isHidden(path, attrs))) {
+            refreshed.put(path, mapper.apply(path, attrs));
+        }
+    }
+
+    /**
+     * Registers and walks a directory. A directory that vanished walks as empty, so its
+     * entries are dropped on merge.
+     */
+    private void walk(Path directory, Map<Path, Collection<FileInfo>> walked) {
+        Queue<FileInfo> found = new ConcurrentLinkedQueue<>();
+        try {
+            register(directory);
+            new DirectoryWalker(parallelism, includeSubfolders, includeHidden, mapper).walk(directory, found::add);
+        } catch (NoSuchFileException e) {
+            // removed again before we got to it
+        } catch (IOException e) {
+            log.warn("Could not rescan " + directory + " - " + e.getMessage());
+            return;
+        }
+        walked.put(directory, found);
+    }
+
+    /**
+     * Diffs a walk against the inventory rows under the walked directory.
+     */
+    private void merge(Path directory, Collection<FileInfo> found, Changes changes) {
+        Map<Path, FileInfo> stale = new LinkedHashMap<>();
+        for (FileInfo file : rowsUnder(directory, includeSubfolders)) {
+            stale.put(file.getPath(), file);
+        }
+        for (FileInfo file : found) {
+            stale.remove(file.getPath());
+            upsert(file, changes);
+        }
+        for (FileInfo file : stale.values()) {
+            remove(file, changes);
+        }
+    }
+
+    private List<FileInfo> rowsUnder(Path directory, boolean recursive) {
+        synchronized (inventory) {
+            return inventory.asList(inventory.rowsUnder(directory, recursive));
+        }
+    }
+
+    /**
+     * Walks the folders under {@code start}, taking the lock only to register each one.
+     */
+    private int register(Path start) throws IOException {
+        int[] count = {0};
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!includeSubfolders && !dir.equals(start)) return FileVisitResult.SKIP_SUBTREE;
+                if (watch(dir)) count[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count[0];
+    }
+
+    private synchronized boolean watch(Path dir) throws IOException {
+        if (watcher == null) throw new ClosedWatchServiceException();
+        if (watchedDirectories.containsKey(dir)) return false;
+        watchedDirectories.put(dir, dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+        return true;
+    }
+
+    private synchronized boolean isWatched(Path dir) {
+        return watchedDirectories.containsKey(dir);
+    }
+
+    private void upsert(FileInfo fresh, Changes changes) {
+        FileInfo existing = inventory.lookup(fresh.getPath());
+        if (existing == null || removing.contains(existing)) {
+            if (classifier != null) classifier.accept(fresh);
+            synchronized (inventory) {
+                changes.added.add(inventory.view(inventory.add(fresh)));
+            }
+        } else if (existing.getSize() != fresh.getSize()
+            || existing.getLastModifiedNanos() != fresh.getLastModifiedNanos()) {
+            existing.setSize(fresh.getSize());
+            existing.setLastModifiedNanos(fresh.getLastModifiedNanos());
+            existing.setHash(null);
+            if (classifier != null) classifier.accept(existing);
+            changes.modified.add(existing);
+        }
+    }
+
+    /**
+     * Marks a row for removal at the end of the batch; null is ignored.
+     */
+    private void remove(FileInfo file, Changes changes) {
+        if (file != null && removing.add(file)) {
+            changes.removed.add(file);
+        }
+    }
+
+    private void removeSubtree(Path directory, Changes changes) {
+        watchedDirectories.entrySet().removeIf(entry -> {
+            if (!entry.getKey().startsWith(directory)) return false;
+            entry.getValue().cancel();
+            return true;
+        });
+        for (FileInfo file : rowsUnder(directory, true)) {
+            remove(file, changes);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.sortify;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Buffered, level-filtered log pipeline.
+ * Producers append to a lock-free ring buffer. A single flusher thread drains it on a
+ * fixed interval and hands the whole batch to the target in one call. Messages that
+ * arrive while the ring is full are dropped and counted instead of blocking the caller.
+ */
+public class LogSink {
+
+    /** OFF is a threshold only; nothing is logged at it. */
+    public enum Level { DEBUG, INFO, WARN, OFF }
+
+    private final Consumer<String> target;
+    private final boolean buffered;
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported = 0;
+    private volatile Level level = Level.INFO;
+    private ScheduledExecutorService flusher;
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     * @param target receives each flushed batch as newline-terminated text
+     */
+    public LogSink(int capacity, Consumer<String> target) {
+        this(capacity, target, true);
+    }
+
+    private LogSink(int capacity, Consumer<String> target, boolean buffered) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.target = target;
+        this.buffered = buffered;
+        this.slots = new AtomicReferenceArray<>(buffered ? size : 0);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Unbuffered sink that passes every message straight to the target, at every level.
+     */
+    public static LogSink direct(Consumer<String> target) {
+        LogSink sink = new LogSink(2, target, false);
+        sink.setLevel(Level.DEBUG);
+        return sink;
+    }
+
+    /**
+     * Sink that accepts nothing, so callers skip building their messages entirely.
+     */
+    public static LogSink discard() {
+        LogSink sink = new LogSink(2, message -> { }, false);
+        sink.setLevel(Level.OFF);
+        return sink;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Hot paths check this before building a message, so filtered levels cost nothing.
+     */
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    public void debug(String message) { log(Level.DEBUG, message); }
+    public void info(String message) { log(Level.INFO, message); }
+    public void warn(String message) { log(Level.WARN, message); }
+
+    public void log(Level messageLevel, String message) {
+        if (!isEnabled(messageLevel)) return;
+        if (!buffered) {
+            target.accept(message);
+            return;
+        }
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) (claimed & mask), message);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Starts the background flusher; batches reach the target at most once per interval.
+     */
+    public synchronized void start(long flushIntervalMillis) {
+        if (!buffered || flusher != null) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sortify-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        flush();
+    }
+
+    /**
+     * Drains everything published so far into a single batch.
+     */
+    public synchronized void flush() {
+        if (!buffered) return;
+        StringBuilder batch = new StringBuilder();
+        long position = head;
+        while (true) {
+            int index = (int) (position & mask);
+            String message = slots.get(index);
+            if (message == null) break; // empty, or claimed but not yet written
+            slots.lazySet(index, null);
+            batch.append(message).append('\n');
+            position++;
+        }
+        head = position;
+
+        long totalDropped = dropped.sum();
+        if (totalDropped > droppedReported) {
+            batch.append("... ").append(totalDropped - droppedReported).append(" log messages dropped\n");
+            droppedReported = totalDropped;
+        }
+        if (batch.length() > 0) {
+            target.accept(batch.toString());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.sortify;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stable LSD radix sort over 64-bit keys, eight passes of one byte each.
+ * Keys are made unsigned by flipping the sign bit. Descending order flips every other bit
+ * too, so it is the same stable sort with no reversal afterwards, and equal keys keep their
+ * input order just like a stable sort with a reversed comparator. Passes where every key
+ * has the same byte are skipped, so narrow key ranges cost only a few passes. Linear in the
+ * number of keys whatever their distribution.
+ */
+final class LongRadixSort {
+
+    private static final int RADIX = 256;
+
+    private LongRadixSort() {
+    }
+
+    /**
+     * Stable order of the keys: {@code order[i]} is the index of the i-th key in sorted order.
+     */
+    static int[] order(long[] keys, boolean ascending) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        long[] sorted = new long[n];
+        long flip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            sorted[i] = keys[i] ^ flip;
+        }
+        sortUnsigned(sorted, order);
+        return order;
+    }
+
+    /**
+     * Stable order by {@code keys}, then by {@code tieBreak} among equal keys.
+     */
+    static int[] order(long[] keys, long[] tieBreak, boolean ascending) {
+        int[] order = order(tieBreak, ascending);
+        long flip = ascending ? Long.MIN_VALUE : Long.MAX_VALUE;
+        long[] sorted = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = keys[order[i]] ^ flip;
+        }
+        sortUnsigned(sorted, order);
+        return order;
+    }
+
+    static void sort(List<FileInfo> files, ToLongFunction<FileInfo> key, boolean ascending) {
+        FileInfo[] items = files.toArray(new FileInfo[0]);
+        long[] keys = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = key.applyAsLong(items[i]);
+        }
+        apply(files, items, order(keys, ascending));
+    }
+
+    /**
+     * Sorts by a timestamp: epoch milliseconds first, then the nanoseconds within the
+     * millisecond, which together give exactly LocalDateTime's natural order.
+     */
+    static void sortByDate(List<FileInfo> files, Function<FileInfo, LocalDateTime> date, boolean ascending) {
+        FileInfo[] items = files.toArray(new FileInfo[0]);
+        long[] millis = new long[items.length];
+        long[] nanos = new long[items.length];
+        boolean subMillis = false;
+        for (int i = 0; i < items.length; i++) {
+            LocalDateTime time = date.apply(items[i]);
+            millis[i] = time.toInstant(ZoneOffset.UTC).toEpochMilli();
+            nanos[i] = time.getNano() % 1_000_000;
+            subMillis |= nanos[i] != 0;
+        }
+        apply(files, items, subMillis ? order(millis, nanos, ascending) : order(millis, ascending));
+    }
+
+    static void apply(List<FileInfo> files, FileInfo[] items, int[] order) {
+        ListIterator<FileInfo> it = files.listIterator();
+        for (int index : order) {
+            it.next();
+            it.set(items[index]);
+        }
+    }
+
+    /**
+     * Sorts {@code keys} as unsigned values, permuting {@code order} alongside.
+     */
+    private static void sortUnsigned(long[] keys, int[] order) {
+        int n = keys.length;
+        if (n < 2) return;
+        long[] auxKeys = new long[n];
+        int[] auxOrder = new int[n];
+        int[] count = new int[RADIX];
+        for (int shift = 0; shift < Long.SIZE; shift += 8) {
+            Arrays.fill(count, 0);
+            for (long key : keys) {
+                count[(int) (key >>> shift) & 0xFF]++;
+            }
+            if (count[(int) (keys[0] >>> shift) & 0xFF] == n) continue; // byte is constant
+            int position = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int c = count[b];
+                count[b] = position;
+                position += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int target = count[(int) (keys[i] >>> shift) & 0xFF]++;
+                auxKeys[target] = keys[i];
+                auxOrder[target] = order[i];
+            }
+            System.arraycopy(auxKeys, 0, keys, 0, n);
+            System.arraycopy(auxOrder, 0, order, 0, n);
+        }
+    }
+}
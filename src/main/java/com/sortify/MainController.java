@@ -12,11 +12,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +29,11 @@ import java.util.Map;
 
 public class MainController {
 
+    private static final int HASH_CACHE_ENTRIES = 1_000_000;
+    private static final int LOG_BUFFER_SIZE = 1 << 16;
+    private static final long LOG_FLUSH_INTERVAL_MS = 100;
+    private static final int MAX_LOG_CHARS = 200_000;
+
     @FXML private TabPane mainTabPane;
     @FXML private VBox progressPreviewCard;
 
@@ -48,6 +55,8 @@ public class MainController {
     @FXML private ProgressBar progressBar;
     @FXML private Label progressLabel;
     @FXML private TextArea logArea;
+    @FXML private CheckBox verboseLogCheck;
+    @FXML private CheckBox liveWatchCheck;
     @FXML private VBox previewVBox;
     @FXML private ListView<String> categoryListView;
     @FXML private TreeView<String> directoryTreeView;
@@ -58,6 +67,7 @@ public class MainController {
     @FXML private Label spaceRecoveredLabel;
     @FXML private Label timeTakenLabel;
     @FXML private Button exportReportButton;
+    @FXML private Button undoOrganizeButton;
     @FXML private VBox searchSortVBox;
     @FXML private ComboBox<String> scopeCombo;
     @FXML private Button loadDataButton;
@@ -84,21 +94,46 @@ public class MainController {
 
     private Path selectedDirectory;
     private FileOrganizer organizer;
-    private List<FileInfo> scannedFiles;
+    private LogSink logSink;
+    private FileInventory inventory; // the current scan; every tab works on views of its rows
     private Map<String, List<FileInfo>> detectedDuplicates;
     private List<FileInfo> loadedFiles;
+    private SearchIndex searchIndex;
+    private String loadedScope;
     private Map<String, List<FileInfo>> duplicateGroups;
+    private ScanResult lastScan;
+    private FileOrganizer.Classifier lastClassifier;
+    private LiveIndex liveIndex;
+    private int watchGeneration; // batches queued by an index that has since been replaced are dropped
 
     @FXML
     public void initialize() {
         organizer = new FileOrganizer();
         organizer.setProgressCallback(this::updateProgress);
-        organizer.setLogCallback(this::logMessage);
+        logSink = new LogSink(LOG_BUFFER_SIZE, this::appendLog);
+        logSink.start(LOG_FLUSH_INTERVAL_MS);
+        organizer.setLogSink(logSink);
+        verboseLogCheck.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            logSink.setLevel(newVal ? LogSink.Level.DEBUG : LogSink.Level.INFO);
+        });
+        liveWatchCheck.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal) startWatching(); else stopWatching();
+        });
+        Path extensionMappings = Paths.get(System.getProperty("user.home"), ".sortify", "extensions.properties");
+        if (Files.exists(extensionMappings)) {
+            try {
+                organizer.loadExtensionMappings(extensionMappings);
+            } catch (IOException e) {
+                logMessage("Could not load extension mappings: " + e.getMessage());
+            }
+        }
+        organizer.setHashCache(new HashCache(Paths.get(System.getProperty("user.home"), ".sortify", "hash-cache.bin"), HASH_CACHE_ENTRIES));
+        organizer.setWorkspaceStore(Paths.get(System.getProperty("user.home"), ".sortify", "workspaces"));
         sortCriteriaCombo.getItems().addAll("Name", "Size", "Creation Date", "Last Modified", "Type");
         conflictResolutionCombo.getItems().addAll("Rename", "Skip", "Overwrite");
         scopeCombo.getItems().addAll("Entire Workspace", "Assignments", "Lectures", "Lab Work", "Projects", "Exams and Quizzes", "Code Files", "Reading Material", "Media", "Miscellaneous");
         sortCriteriaCombo2.getItems().addAll("Name", "Size", "Creation Date", "Last Modified", "Type");
-        sortAlgorithmCombo.getItems().addAll("Bubble Sort", "Selection Sort", "Insertion Sort", "Merge Sort", "Quick Sort", "Heap Sort", "Counting Sort", "Radix Sort", "Bucket Sort");
+        sortAlgorithmCombo.getItems().addAll("Auto", "Bubble Sort", "Selection Sort", "Insertion Sort", "Merge Sort", "Quick Sort", "Heap Sort", "Counting Sort", "Radix Sort", "Bucket Sort");
         filterTypeCombo.getItems().addAll("PDF", "DOCX", "PPTX", "JAVA", "PY", "CPP", "JPG", "PNG", "MP4", "All");
         duplicateScopeCombo.getItems().addAll("Entire Workspace", "Assignments", "Lectures", "Lab Work", "Projects", "Exams and Quizzes", "Code Files", "Reading Material", "Media", "Miscellaneous");
 
@@ -116,6 +151,78 @@ public class MainController {
         if (selectedDir != null) {
             selectedDirectory = selectedDir.toPath();
             directoryField.setText(selectedDirectory.toString());
+            organizer.openJournal(selectedDirectory);
+            openSavedWorkspace();
+        }
+    }
+
+    /**
+     * Picks up the saved scan of the selected folder, if any, so the tabs are usable without a rescan.
+     */
+    private void openSavedWorkspace() {
+        stopWatching();
+        lastScan = null;
+        setUIEnabled(false);
+        Path directory = selectedDirectory;
+        FileOrganizer.Classifier classifier = buildClassifier();
+        new Thread(() -> {
+            try {
+                updateProgress("Opening saved workspace...", 0.1);
+                WorkspaceSnapshot snapshot = organizer.openWorkspace(directory, classifier);
+                Platform.runLater(() -> {
+                    setUIEnabled(true);
+                    if (snapshot == null || !directory.equals(selectedDirectory)) {
+                        updateProgress("Ready to start...", 0.0);
+                        return;
+                    }
+                    includeSubfoldersCheck.setSelected(snapshot.isIncludeSubfolders());
+                    includeHiddenCheck.setSelected(snapshot.isIncludeHidden());
+                    useScan(snapshot.getScan(), snapshot.getDuplicates(), classifier);
+                    updateProgress("Opened saved workspace (" + snapshot.getChanged() + " changed, "
+                        + snapshot.getRemoved() + " removed, " + snapshot.getAdded() + " new). Review and confirm.", 1.0);
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    setUIEnabled(true);
+                    logMessage("Could not open saved workspace: " + e.getMessage());
+                });
+            }
+        }).start();
+    }
+
+    /**
+     * Classifier for one scan, with the settings and the "Recent Files" cutoff fixed now.
+     */
+    private FileOrganizer.Classifier buildClassifier() {
+        if (!autoClassificationCheck.isSelected()) return null;
+        return organizer.newClassifier(enableNameBasedCheck.isSelected(), enableContextRulesCheck.isSelected(),
+            (int) confidenceThresholdSlider.getValue());
+    }
+
+    /**
+     * Makes a finished scan the current one. The Browse data of the previous scan is dropped;
+     * Load Data brings up the new one.
+     */
+    private void useScan(ScanResult scan, Map<String, List<FileInfo>> duplicates, FileOrganizer.Classifier classifier) {
+        inventory = scan.getInventory();
+        detectedDuplicates = duplicates;
+        lastScan = scan;
+        lastClassifier = classifier;
+        loadedFiles = null;
+        searchIndex = null;
+        if (liveWatchCheck.isSelected()) startWatching();
+        displayPreview(inventory.asList(), detectedDuplicates);
+    }
+
+    /**
+     * Snapshots the current scan so the next start can skip the walk. Runs on the caller's thread.
+     */
+    private void saveWorkspace(Path directory, boolean includeSubfolders, boolean includeHidden,
+                               FileInventory files, Map<Path, Long> directoryTimes, boolean duplicatesDetected) {
+        try {
+            organizer.saveWorkspace(directory, includeSubfolders, includeHidden, files, directoryTimes, duplicatesDetected);
+        } catch (IOException e) {
+            logMessage("Could not save workspace snapshot: " + e.getMessage());
         }
     }
 
@@ -128,30 +235,27 @@ public class MainController {
 
         // Disable UI during processing
         setUIEnabled(false);
+        stopWatching();
+        lastScan = null;
 
         // Run in background thread
+        FileOrganizer.Classifier classifier = buildClassifier();
         new Thread(() -> {
             try {
                 long startTime = System.currentTimeMillis();
 
-                // Scan directory
-                updateProgress("Scanning directory...", 0.1);
-                List<FileInfo> files = organizer.scanDirectory(selectedDirectory, includeSubfoldersCheck.isSelected(), includeHiddenCheck.isSelected());
+                // Scan directory, classifying files as they are found
+                updateProgress("Scanning and classifying...", 0.1);
+                boolean includeSubfolders = includeSubfoldersCheck.isSelected();
+                boolean includeHidden = includeHiddenCheck.isSelected();
+                ScanResult scan = organizer.scanPipeline(selectedDirectory, includeSubfolders, includeHidden, classifier);
+                FileInventory files = scan.getInventory();
 
-                // Detect duplicates if enabled
+                // Detect duplicates if enabled, grouping on the inventory's size and digest columns
                 Map<String, List<FileInfo>> duplicates = null;
                 if (duplicateDetectionCheck.isSelected()) {
-                    updateProgress("Detecting duplicates...", 0.3);
-                    duplicates = organizer.detectDuplicatesAdvanced(files);
-                }
-
-                // Classify files if enabled
-                if (autoClassificationCheck.isSelected()) {
-                    updateProgress("Classifying files...", 0.5);
-                    boolean enableNameBased = enableNameBasedCheck.isSelected();
-                    boolean enableContextRules = enableContextRulesCheck.isSelected();
-                    int confidenceThreshold = (int) confidenceThresholdSlider.getValue();
-                    organizer.classifyFiles(files, enableNameBased, enableContextRules, confidenceThreshold);
+                    updateProgress("Detecting duplicates...", 0.5);
+                    duplicates = organizer.detectDuplicatesAdvanced(scan);
                 }
 
                 // Sort files if enabled
@@ -160,11 +264,11 @@ public class MainController {
                     organizer.sortFiles(files, sortCriteriaCombo.getValue());
                 }
 
-                scannedFiles = files;
-                detectedDuplicates = duplicates;
+                saveWorkspace(selectedDirectory, includeSubfolders, includeHidden, files, scan.getDirectoryTimes(), duplicates != null);
 
+                Map<String, List<FileInfo>> found = duplicates;
                 Platform.runLater(() -> {
-                    displayPreview(scannedFiles, detectedDuplicates);
+                    useScan(scan, found, classifier);
                     setUIEnabled(true);
                     updateProgress("Preview ready. Review and confirm.", 1.0);
                 });
@@ -178,6 +282,98 @@ public class MainController {
         }).start();
     }
 
+    /**
+     * Starts keeping the last scan current; the Browse and Duplicates tabs follow the changes.
+     */
+    private void startWatching() {
+        if (lastScan == null || liveIndex != null) return;
+        int generation = ++watchGeneration;
+        // Live changes are classified against the time they arrive, not the time of the scan
+        Consumer<FileInfo> classifier = lastClassifier != null ? lastClassifier::classifyNow : null;
+        liveIndex = organizer.watch(selectedDirectory, lastScan, includeSubfoldersCheck.isSelected(),
+            includeHiddenCheck.isSelected(), classifier, changes -> Platform.runLater(() -> {
+                if (generation == watchGeneration) applyLiveChanges(changes);
+            }));
+        try {
+            liveIndex.start();
+        } catch (IOException e) {
+            liveIndex = null;
+            logMessage("Could not watch " + selectedDirectory + ": " + e.getMessage());
+        }
+    }
+
+    private void stopWatching() {
+        if (liveIndex == null) return;
+        try {
+            liveIndex.close();
+        } catch (IOException e) {
+            logMessage("Could not stop watching: " + e.getMessage());
+        }
+        liveIndex = null;
+    }
+
+    /**
+     * Stops watching before the app moves files itself. The index would otherwise see those
+     * moves as deletes plus new files, dropping their digests and categories, while the mover
+     * rewrites the same rows on another thread.
+     *
+     * @return whether the index was running
+     */
+    private boolean pauseWatching() {
+        boolean watching = liveIndex != null;
+        stopWatching();
+        return watching;
+    }
+
+    /**
+     * Restarts watching if it was running. The app's own moves went through the inventory,
+     * so the new index starts from the files as they are now.
+     */
+    private void resumeWatching(boolean watching) {
+        if (watching) startWatching();
+    }
+
+    /**
+     * Folder times of the last scan, for saving from a background thread; null when unknown.
+     */
+    private Map<Path, Long> directoryTimes() {
+        return lastScan != null ? lastScan.getDirectoryTimes() : null;
+    }
+
+    private void applyLiveChanges(LiveIndex.Changes changes) {
+        if (liveIndex == null) return;
+
+        // Removed and rewritten files drop out of their duplicate groups until the next duplicate scan
+        List<FileInfo> stale = new ArrayList<>(changes.removed);
+        stale.addAll(changes.modified);
+        dropFromGroups(detectedDuplicates, stale);
+        if (dropFromGroups(duplicateGroups, stale)) {
+            updateDuplicateGroupsList(duplicateGroups);
+            duplicateTable.getItems().removeAll(stale);
+        }
+
+        if (previewVBox.isVisible()) {
+            displayPreview(inventory.asList(), detectedDuplicates);
+        }
+        if (searchIndex != null) {
+            updateBrowse(changes.removed, changes.modified, changes.added);
+            analyticsLabel.setText("Loaded " + loadedFiles.size() + " files (live: +" + changes.added.size()
+                + " / ~" + changes.modified.size() + " / -" + changes.removed.size() + ")");
+        }
+    }
+
+    private static boolean dropFromGroups(Map<String, List<FileInfo>> groups, List<FileInfo> files) {
+        if (groups == null || files.isEmpty()) return false;
+        boolean changed = false;
+        Iterator<List<FileInfo>> it = groups.values().iterator();
+        while (it.hasNext()) {
+            List<FileInfo> group = it.next();
+            changed |= group.removeAll(files);
+            if (group.size() < 2) it.remove();
+        }
+        return changed;
+    }
+
     private void updateProgress(String message, double progress) {
         Platform.runLater(() -> {
             progressLabel.setText(message);
@@ -186,7 +382,20 @@ public class MainController {
     }
 
     private void logMessage(String message) {
-        Platform.runLater(() -> logArea.appendText(message + "\n"));
+        logSink.warn(message);
+    }
+
+    /**
+     * Receives batched log text from the sink; keeps only the tail of the log in the TextArea.
+     */
+    private void appendLog(String text) {
+        Platform.runLater(() -> {
+            logArea.appendText(text);
+            int excess = logArea.getLength() - MAX_LOG_CHARS;
+            if (excess > 0) {
+                logArea.deleteText(0, excess);
+            }
+        });
     }
 
     private void displayPreview(List<FileInfo> files, Map<String, List<FileInfo>> duplicates) {
@@ -233,6 +442,7 @@ public class MainController {
         customRulesCheck.setDisable(!enabled);
         sortCriteriaCombo.setDisable(!enabled);
         conflictResolutionCombo.setDisable(!enabled);
+        undoOrganizeButton.setDisable(!enabled);
     }
 
     private void showAlert(String title, String message) {
@@ -245,7 +455,7 @@ public class MainController {
 
     @FXML
     public void confirmAndOrganize() {
-        if (scannedFiles == null) {
+        if (inventory == null) {
             showAlert("Error", "No files to organize.");
             return;
         }
@@ -253,22 +463,29 @@ public class MainController {
         setUIEnabled(false);
         previewVBox.setVisible(false);
         progressPreviewCard.setVisible(false);
+        boolean watching = pauseWatching();
+        Map<Path, Long> directoryTimes = directoryTimes();
+        FileInventory files = inventory;
 
         new Thread(() -> {
             try {
                 long startTime = System.currentTimeMillis();
 
                 updateProgress("Organizing files...", 0.5);
-                organizer.organizeFiles(scannedFiles, selectedDirectory.resolve("Sortify_Organized"));
+                organizer.organizeFiles(files.asList(), selectedDirectory.resolve("Sortify_Organized"));
+                saveWorkspace(selectedDirectory, includeSubfoldersCheck.isSelected(), includeHiddenCheck.isSelected(),
+                    files, directoryTimes, detectedDuplicates != null);
 
                 long endTime = System.currentTimeMillis();
                 double timeTaken = (endTime - startTime) / 1000.0;
 
-                int fileCount = scannedFiles.size();
+                int fileCount = files.size();
                 int dupRemoved = detectedDuplicates != null ? organizer.getDuplicatesRemoved() : 0;
                 long spaceRecovered = organizer.getSpaceRecovered();
 
                 Platform.runLater(() -> {
+                    reloadBrowse();
+                    resumeWatching(watching);
                     updateSummary(fileCount, dupRemoved, spaceRecovered, timeTaken);
                     setUIEnabled(true);
                     updateProgress("Completed!", 1.0);
@@ -276,6 +493,8 @@ public class MainController {
 
             } catch (Exception e) {
                 Platform.runLater(() -> {
+                    reloadBrowse();
+                    resumeWatching(watching);
                     showAlert("Error", "An error occurred: " + e.getMessage());
                     setUIEnabled(true);
                 });
@@ -285,21 +504,17 @@ public class MainController {
 
     @FXML
     public void loadData() {
-        if (scannedFiles == null || scannedFiles.isEmpty()) {
+        if (inventory == null || inventory.size() == 0) {
             showAlert("Error", "No files available. Please organize files first.");
             return;
         }
 
-        String scope = scopeCombo.getValue();
-        loadedFiles = new ArrayList<>();
-        if ("Entire Workspace".equals(scope)) {
-            loadedFiles.addAll(scannedFiles);
-        } else {
-            for (FileInfo file : scannedFiles) {
-                if (scope.equals(file.getCategory())) {
-                    loadedFiles.add(file);
-                }
-            }
+        // Explorer shows the scan's own rows; sorting and filtering run on the inventory's columns
+        loadedScope = scopeCombo.getValue();
+        synchronized (inventory) {
+            int[] rows = browseRows(null, 0, Long.MAX_VALUE);
+            loadedFiles = inventory.asList(rows);
+            searchIndex = SearchIndex.of(inventory, rows);
         }
 
         updateFileTable(loadedFiles);
@@ -308,6 +523,55 @@ public class MainController {
         mainTabPane.getSelectionModel().select(1);
     }
 
+    /**
+     * Rows of the loaded scope matching a type and size filter, in the inventory's current
+     * order. Callers hold the inventory's lock while they turn the rows into views.
+     */
+    private int[] browseRows(String type, long minSize, long maxSize) {
+        String category = "Entire Workspace".equals(loadedScope) ? null : loadedScope;
+        return inventory.filter(category, type, minSize, maxSize);
+    }
+
+    private static boolean inScope(String scope, String category) {
+        return "Entire Workspace".equals(scope) || scope.equals(category);
+    }
+
+    /**
+     * Refreshes the Browse table from the inventory, e.g. after a sort or after files moved.
+     */
+    private void reloadBrowse() {
+        if (searchIndex == null) return;
+        synchronized (inventory) {
+            loadedFiles = inventory.asList(browseRows(null, 0, Long.MAX_VALUE));
+        }
+        updateFileTable(loadedFiles);
+    }
+
+    /**
+     * Applies file changes to the Browse search index without rebuilding it, then reloads
+     * the table. Only the changed files are re-indexed.
+     */
+    private void updateBrowse(Collection<FileInfo> removed, Collection<FileInfo> changed, Collection<FileInfo> added) {
+        if (searchIndex == null) return;
+        for (FileInfo file : removed) {
+            int key = inventory.keyOf(file);
+            if (key >= 0) searchIndex.remove(key);
+        }
+        List<FileInfo> touched = new ArrayList<>(changed);
+        touched.addAll(added);
+        for (FileInfo file : touched) {
+            int key = inventory.keyOf(file);
+            if (key < 0) continue;
+            String category = file.getCategory();
+            if (file.getPath() != null && inScope(loadedScope, category)) {
+                searchIndex.put(key, file.getName(), file.getExtension(), category);
+            } else {
+                searchIndex.remove(key);
+            }
+        }
+        reloadBrowse();
+    }
+
     private void updateFileTable(List<FileInfo> files) {
         ObservableList<FileInfo> data = FXCollections.observableArrayList(files);
         fileTable.setItems(data);
@@ -325,19 +589,27 @@ public class MainController {
         String algorithm = sortAlgorithmCombo.getValue();
 
         long startTime = System.nanoTime();
-        organizer.sortFilesWithAlgorithm(loadedFiles, criteria, ascending, algorithm);
+        String used;
+        if ("Auto".equals(algorithm)) {
+            used = "Auto → " + inventory.sort(criteria, ascending);
+        } else {
+            // The list-based algorithms sort a copy of the row views, then the columns follow
+            List<FileInfo> rows = new ArrayList<>(loadedFiles);
+            organizer.sortFilesWithAlgorithm(rows, criteria, ascending, algorithm);
+            inventory.reorder(rows);
+            used = organizer.getLastSortAlgorithm();
+        }
         long endTime = System.nanoTime();
         double timeMs = (endTime - startTime) / 1_000_000.0;
 
-        updateFileTable(loadedFiles);
-        analyticsLabel.setText(String.format("Sorted %d files using %s in %.2f ms", loadedFiles.size(), algorithm, timeMs));
+        reloadBrowse();
+        analyticsLabel.setText(String.format("Sorted %d files using %s in %.2f ms", loadedFiles.size(), used, timeMs));
     }
 
     @FXML
     public void applyFilter() {
         if (loadedFiles == null) return;
 
-        List<FileInfo> filtered = new ArrayList<>();
         String type = filterTypeCombo.getValue();
         long minSize = 0, maxSize = Long.MAX_VALUE;
         try {
@@ -348,12 +620,9 @@ public class MainController {
             return;
         }
 
-        for (FileInfo file : loadedFiles) {
-            boolean matchesType = type == null || "All".equals(type) || type.equalsIgnoreCase(file.getExtension());
-            boolean matchesSize = file.getSize() >= minSize && file.getSize() <= maxSize;
-            if (matchesType && matchesSize) {
-                filtered.add(file);
-            }
+        List<FileInfo> filtered;
+        synchronized (inventory) {
+            filtered = inventory.asList(browseRows("All".equals(type) ? null : type, minSize, maxSize));
         }
 
         updateFileTable(filtered);
@@ -370,14 +639,8 @@ public class MainController {
             return;
         }
 
-        List<FileInfo> results = new ArrayList<>();
-        for (FileInfo file : loadedFiles) {
-            if (file.getName().toLowerCase().contains(query) ||
-                file.getExtension().toLowerCase().contains(query) ||
-                file.getCategory().toLowerCase().contains(query)) {
-                results.add(file);
-            }
-        }
+        // Trigram index lookup; rows come back in the current sort order
+        List<FileInfo> results = inventory.asListByKeys(searchIndex.search(query));
 
         updateFileTable(results);
         analyticsLabel.setText("Found " + results.size() + " matches for '" + query + "'");
@@ -385,7 +648,7 @@ public class MainController {
 
     @FXML
     public void scanDuplicates() {
-        if (scannedFiles == null || scannedFiles.isEmpty()) {
+        if (inventory == null || inventory.size() == 0) {
             showAlert("Error", "No files available. Please organize files first.");
             return;
         }
@@ -396,29 +659,27 @@ public class MainController {
             return;
         }
 
-        List<FileInfo> scopeFiles = new ArrayList<>();
-        if ("Entire Workspace".equals(scope)) {
-            scopeFiles.addAll(scannedFiles);
-        } else {
-            for (FileInfo file : scannedFiles) {
-                if (scope.equals(file.getCategory())) {
-                    scopeFiles.add(file);
-                }
-            }
-        }
+        Map<Path, Long> directoryTimes = directoryTimes();
+        FileInventory files = inventory;
+        String category = "Entire Workspace".equals(scope) ? null : scope;
 
         new Thread(() -> {
             try {
                 long startTime = System.nanoTime();
-                Map<String, List<FileInfo>> duplicates = organizer.detectDuplicatesAdvanced(scopeFiles);
+                // Size groups come from the inventory's size column, kept current by the live index
+                Map<String, List<FileInfo>> duplicates = organizer.detectDuplicatesAdvanced(files, category);
                 long endTime = System.nanoTime();
                 double timeMs = (endTime - startTime) / 1_000_000.0;
 
                 duplicateGroups = duplicates;
+                saveWorkspace(selectedDirectory, includeSubfoldersCheck.isSelected(), includeHiddenCheck.isSelected(),
+                    files, directoryTimes, detectedDuplicates != null);
 
                 Platform.runLater(() -> {
                     updateDuplicateGroupsList(duplicates);
-                    duplicateAnalyticsLabel.setText(String.format("Found %d duplicate groups in %.2f ms", duplicates.size(), timeMs));
+                    DuplicateScanReport report = organizer.getLastDuplicateReport();
+                    duplicateAnalyticsLabel.setText(String.format("Found %d duplicate groups in %.2f ms (eliminated: size %d, sample %d, hash %d)",
+                        duplicates.size(), timeMs, report.getEliminatedBySize(), report.getEliminatedBySample(), report.getEliminatedByFullHash()));
                     // Switch to Duplicates tab
                     mainTabPane.getSelectionModel().select(2);
                 });
@@ -484,48 +745,31 @@ public class MainController {
             return;
         }
 
-        // Create recovery folder
         Path recoveryDir = selectedDirectory.resolve("Sortify_Recovery");
+        boolean watching = pauseWatching();
+        List<FileInfo> moved;
         try {
-            Files.createDirectories(recoveryDir);
+            moved = organizer.moveToRecovery(toDelete, recoveryDir);
         } catch (IOException e) {
+            resumeWatching(watching);
             showAlert("Error", "Could not create recovery folder: " + e.getMessage());
             return;
         }
 
-        int deletedCount = 0;
         long spaceRecovered = 0;
-
-        for (FileInfo file : toDelete) {
-            try {
-                Path source = file.getPath();
-                Path target = recoveryDir.resolve(source.getFileName());
-                // Handle name conflicts in recovery
-                int counter = 1;
-                while (Files.exists(target)) {
-                    String name = source.getFileName().toString();
-                    String baseName = name.substring(0, name.lastIndexOf('.'));
-                    String extension = name.substring(name.lastIndexOf('.'));
-                    target = recoveryDir.resolve(baseName + "_rec" + counter + extension);
-                    counter++;
-                }
-
-                Files.move(source, target);
-                deletedCount++;
-                spaceRecovered += file.getSize();
-
-                // Remove from scannedFiles list
-                scannedFiles.remove(file);
-
-            } catch (IOException e) {
-                logMessage("Failed to move file: " + file.getName() + " - " + e.getMessage());
-            }
+        for (FileInfo file : moved) {
+            spaceRecovered += file.getSize();
+        }
+        if (inventory != null) {
+            inventory.removeAll(moved);
         }
+        updateBrowse(moved, List.of(), List.of());
+        resumeWatching(watching);
 
         // Update UI
         duplicateTable.getItems().removeAll(toDelete);
-        duplicateAnalyticsLabel.setText(duplicateAnalyticsLabel.getText() + " | Deleted: " + deletedCount + " files (" + formatSize(spaceRecovered) + " recovered)");
-        showAlert("Success", "Successfully moved " + deletedCount + " duplicate files to recovery folder.");
+        duplicateAnalyticsLabel.setText(duplicateAnalyticsLabel.getText() + " | Deleted: " + moved.size() + " files (" + formatSize(spaceRecovered) + " recovered)");
+        showAlert("Success", "Successfully moved " + moved.size() + " duplicate files to recovery folder.");
     }
 
     @FXML
@@ -535,85 +779,82 @@ public class MainController {
             return;
         }
 
-        Path recoveryDir = selectedDirectory.resolve("Sortify_Recovery");
-        if (!Files.exists(recoveryDir)) {
-            showAlert("Info", "No recovery folder found.");
-            return;
-        }
-
+        boolean watching = pauseWatching();
         try {
-            List<Path> recoveryFiles = Files.list(recoveryDir).collect(Collectors.toList());
-            if (recoveryFiles.isEmpty()) {
-                showAlert("Info", "Recovery folder is empty.");
+            // Journaled removals go back to their exact paths; older ones fall back to the recovery folder
+            List<FileInfo> recovered = organizer.undoRecoveries(selectedDirectory.resolve("Sortify_Recovery"), selectedDirectory);
+            if (recovered.isEmpty()) {
+                showAlert("Info", "Nothing to recover.");
                 return;
             }
+            if (inventory != null) {
+                updateBrowse(List.of(), List.of(), inventory.addAll(recovered));
+            }
+            showAlert("Success", "Successfully recovered " + recovered.size() + " files.");
 
-            int recoveredCount = 0;
-            for (Path file : recoveryFiles) {
-                try {
-                    // Try to move back to original location
-                    String fileName = file.getFileName().toString();
-                    Path target;
-
-                    // If it has "_rec" suffix, try to restore original name
-                    if (fileName.contains("_rec")) {
-                        String originalName = fileName.replaceAll("_rec\\d+", "");
-                        target = selectedDirectory.resolve(originalName);
-                    } else {
-                        target = selectedDirectory.resolve(fileName);
-                    }
+        } catch (IOException e) {
+            showAlert("Error", "Failed to access recovery folder: " + e.getMessage());
+        } finally {
+            resumeWatching(watching);
+        }
+    }
 
-                    // Handle conflicts
-                    int counter = 1;
-                    Path finalTarget = target;
-                    while (Files.exists(finalTarget)) {
-                        String name = target.getFileName().toString();
-                        String baseName = name.substring(0, name.lastIndexOf('.'));
-                        String extension = name.substring(name.lastIndexOf('.'));
-                        finalTarget = target.getParent().resolve(baseName + "_restored" + counter + extension);
-                        counter++;
-                    }
+    @FXML
+    public void undoOrganize() {
+        if (selectedDirectory == null) {
+            showAlert("Error", "No directory selected. Please select a directory first in the Organize tab.");
+            return;
+        }
 
-                    Files.move(file, finalTarget);
-                    recoveredCount++;
-
-                    // Add back to scannedFiles if possible
-                    try {
-                        String recoveredFileName = finalTarget.getFileName().toString();
-                        long fileSize = Files.size(finalTarget);
-                        String extension = recoveredFileName.contains(".") ? recoveredFileName.substring(recoveredFileName.lastIndexOf(".")) : "";
-                        LocalDateTime creationTime = LocalDateTime.now(); // Approximate
-                        LocalDateTime modifiedTime = LocalDateTime.now();
-                        FileInfo recoveredFile = new FileInfo(finalTarget, recoveredFileName, fileSize, extension, creationTime, modifiedTime);
-                        if (scannedFiles != null) {
-                            scannedFiles.add(recoveredFile);
+        setUIEnabled(false);
+        boolean watching = pauseWatching();
+        Map<Path, Long> directoryTimes = directoryTimes();
+        FileInventory files = inventory;
+        new Thread(() -> {
+            try {
+                updateProgress("Undoing last organize...", 0.5);
+                Map<Path, Path> restored = organizer.undoLastOrganize();
+                if (files != null) {
+                    for (FileInfo file : files.asList()) {
+                        Path original = restored.get(file.getPath());
+                        if (original != null) {
+                            file.setPath(original);
                         }
-                    } catch (IOException e) {
-                        // Ignore, file was moved successfully
                     }
-
-                } catch (IOException e) {
-                    logMessage("Failed to recover file: " + file.getFileName() + " - " + e.getMessage());
+                    saveWorkspace(selectedDirectory, includeSubfoldersCheck.isSelected(), includeHiddenCheck.isSelected(),
+                        files, directoryTimes, detectedDuplicates != null);
                 }
-            }
-
-            // Clean up empty recovery folder
-            if (Files.list(recoveryDir).findAny().isEmpty()) {
-                Files.delete(recoveryDir);
-            }
 
-            showAlert("Success", "Successfully recovered " + recoveredCount + " files.");
+                Platform.runLater(() -> {
+                    setUIEnabled(true);
+                    reloadBrowse();
+                    resumeWatching(watching);
+                    if (restored.isEmpty()) {
+                        updateProgress("Nothing to undo.", 0.0);
+                    } else {
+                        updateProgress("Moved " + restored.size() + " files back.", 1.0);
+                    }
+                });
 
-        } catch (IOException e) {
-            showAlert("Error", "Failed to access recovery folder: " + e.getMessage());
-        }
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    resumeWatching(watching);
+                    showAlert("Error", "Undo failed: " + e.getMessage());
+                    setUIEnabled(true);
+                });
+            }
+        }).start();
     }
 
     @FXML
     public void cancel() {
+        stopWatching();
+        lastScan = null;
         previewVBox.setVisible(false);
         progressPreviewCard.setVisible(false);
-        scannedFiles = null;
+        inventory = null;
+        loadedFiles = null;
+        searchIndex = null;
         detectedDuplicates = null;
         updateProgress("Cancelled.", 0.0);
     }
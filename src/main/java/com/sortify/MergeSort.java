@@ -0,0 +1,181 @@
+package com.sortify;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable top-down merge sort over an array with a single scratch buffer.
+ * Each level sorts its halves into the buffer and merges them back, trading roles with the
+ * buffer instead of copying, so the whole sort allocates one array. Runs of 32 or fewer use
+ * insertion sort, and halves that are already in order are copied instead of merged.
+ * Above {@code parallelThreshold} elements both the recursive sorts and the merges split
+ * into fork-join tasks. A merge is divided at the midpoint of its longer run with a binary
+ * search in the other, which keeps equal elements in input order.
+ */
+final class MergeSort {
+
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private MergeSort() {
+    }
+
+    static <T> void sort(T[] items, Comparator<? super T> comparator) {
+        sort(items, comparator, 1, Integer.MAX_VALUE);
+    }
+
+    static <T> void sort(T[] items, Comparator<? super T> comparator, int parallelism, int parallelThreshold) {
+        int n = items.length;
+        if (n < 2) return;
+        T[] scratch = items.clone();
+        if (parallelism > 1 && n > parallelThreshold) {
+            int threshold = Math.max(parallelThreshold, INSERTION_THRESHOLD);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new SortTask<>(scratch, items, 0, n, comparator, threshold));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            sortInto(scratch, items, 0, n, comparator);
+        }
+    }
+
+    /**
+     * Sorts {@code [lo, hi)} into {@code dst}. On entry both arrays hold the same elements
+     * in that range; {@code src} is used as scratch.
+     */
+    private static <T> void sortInto(T[] src, T[] dst, int lo, int hi, Comparator<? super T> comparator) {
+        if (hi - lo <= INSERTION_THRESHOLD) {
+            insertionSort(dst, lo, hi, comparator);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sortInto(dst, src, lo, mid, comparator);
+        sortInto(dst, src, mid, hi, comparator);
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        merge(src, lo, mid, mid, hi, dst, lo, comparator);
+    }
+
+    private static <T> void insertionSort(T[] a, int lo, int hi, Comparator<? super T> comparator) {
+        for (int i = lo + 1; i < hi; i++) {
+            T key = a[i];
+            int j = i - 1;
+            while (j >= lo && comparator.compare(a[j], key) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+
+    private static <T> void merge(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out, Comparator<? super T> comparator) {
+        int i = lo1, j = lo2;
+        while (i < hi1 && j < hi2) {
+            dst[out++] = comparator.compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+        }
+        while (i < hi1) dst[out++] = src[i++];
+        while (j < hi2) dst[out++] = src[j++];
+    }
+
+    /**
+     * First index in {@code [lo, hi)} whose element is not less than {@code key}
+     * ({@code inclusive}) or greater than {@code key} (otherwise).
+     */
+    private static <T> int search(T[] a, int lo, int hi, T key, boolean inclusive, Comparator<? super T> comparator) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparator.compare(a[mid], key);
+            if (inclusive ? cmp < 0 : cmp <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SortTask<T> extends RecursiveAction {
+        private final T[] src;
+        private final T[] dst;
+        private final int lo;
+        private final int hi;
+        private final Comparator<? super T> comparator;
+        private final int threshold;
+
+        SortTask(T[] src, T[] dst, int lo, int hi, Comparator<? super T> comparator, int threshold) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold) {
+                sortInto(src, dst, lo, hi, comparator);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask<>(dst, src, lo, mid, comparator, threshold),
+                new SortTask<>(dst, src, mid, hi, comparator, threshold));
+            if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+                System.arraycopy(src, lo, dst, lo, hi - lo);
+                return;
+            }
+            new MergeTask<>(src, lo, mid, mid, hi, dst, lo, comparator, threshold).compute();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class MergeTask<T> extends RecursiveAction {
+        private final T[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final T[] dst;
+        private final int out;
+        private final Comparator<? super T> comparator;
+        private final int threshold;
+
+        MergeTask(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out, Comparator<? super T> comparator, int threshold) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.comparator = comparator;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if ((hi1 - lo1) + (hi2 - lo2) <= threshold) {
+                merge(src, lo1, hi1, lo2, hi2, dst, out, comparator);
+                return;
+            }
+            int mid1, mid2;
+            if (hi1 - lo1 >= hi2 - lo2) {
+                // Right-run elements equal to the split key go after it: they came later
+                mid1 = (lo1 + hi1) >>> 1;
+                mid2 = search(src, lo2, hi2, src[mid1], true, comparator);
+            } else {
+                // Left-run elements equal to the split key go before it
+                mid2 = (lo2 + hi2) >>> 1;
+                mid1 = search(src, lo1, hi1, src[mid2], false, comparator);
+            }
+            int split = out + (mid1 - lo1) + (mid2 - lo2);
+            invokeAll(new MergeTask<>(src, lo1, mid1, lo2, mid2, dst, out, comparator, threshold),
+                new MergeTask<>(src, mid1, hi1, mid2, hi2, dst, split, comparator, threshold));
+        }
+    }
+}
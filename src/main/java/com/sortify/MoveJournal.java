@@ -0,0 +1,311 @@
+package com.sortify;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Append-only journal of the moves made by organize and recovery, for exact undo.
+ * Each batch of moves is one operation: a BEGIN record, one MOVE record per file
+ * (source, target), and a COMMIT record. Movers record their whole plan and sync once
+ * before moving anything, so a 500k-file organize costs one fsync rather than 500k.
+ * When a move lands somewhere other than planned, a correcting MOVE record is synced
+ * right away. Undo reads the journal once. It replays operations newest first and moves
+ * each file straight back to its recorded source on a bounded pool. Moves that never
+ * happened show up as a missing target and are skipped, so a torn operation undoes
+ * cleanly too. An UNDONE record retires the operation, and the file is deleted once
+ * every operation in it is undone.
+ */
+final class MoveJournal {
+
+    enum Kind { ORGANIZE, RECOVERY }
+
+    private static final int MAGIC = 0x534D4A31; // "SMJ1"
+    private static final byte BEGIN = 'B';
+    private static final byte MOVE = 'M';
+    private static final byte COMMIT = 'C';
+    private static final byte UNDONE = 'U';
+    private static final int UNDO_CHUNK = 1024;
+
+    private final Path file;
+
+    MoveJournal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * One journaled operation as read back from the file.
+     */
+    static final class Operation {
+        final long id;
+        final Kind kind;
+        final long startedAt;
+        // source → target; a later record for the same source replaces the planned target
+        final Map<String, String> moves = new LinkedHashMap<>();
+        boolean committed;
+        boolean undone;
+
+        Operation(long id, Kind kind, long startedAt) {
+            this.id = id;
+            this.kind = kind;
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Open operation; records are buffered until sync() or close().
+     */
+    final class Batch implements Closeable {
+        private final long id;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+
+        private Batch(long id, FileChannel channel) {
+            this.id = id;
+            this.channel = channel;
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        synchronized void record(Path source, Path target) throws IOException {
+            out.writeByte(MOVE);
+            out.writeLong(id);
+            out.writeUTF(source.toAbsolutePath().toString());
+            out.writeUTF(target.toAbsolutePath().toString());
+        }
+
+        /**
+         * Makes every record so far durable. Call before the recorded moves start.
+         */
+        synchronized void sync() throws IOException {
+            out.flush();
+            channel.force(false);
+        }
+
+        /**
+         * Commits the operation.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                out.writeByte(COMMIT);
+                out.writeLong(id);
+                sync();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Starts a new operation at the end of the journal, first cutting off a record left
+     * torn by a crash.
+     */
+    synchronized Batch begin(Kind kind) throws IOException {
+        long valid = Files.exists(file) ? read(new LinkedHashMap<>()) : 0;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(valid);
+            channel.position(valid);
+            Batch batch = new Batch(valid, channel);
+            if (valid == 0) batch.out.writeInt(MAGIC);
+            batch.out.writeByte(BEGIN);
+            batch.out.writeLong(valid);
+            batch.out.writeByte(kind.ordinal());
+            batch.out.writeLong(System.currentTimeMillis());
+            return batch;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Operations not undone yet, oldest first.
+     */
+    synchronized List<Operation> pending() throws IOException {
+        Map<Long, Operation> operations = new LinkedHashMap<>();
+        if (Files.exists(file)) read(operations);
+        List<Operation> pending = new ArrayList<>();
+        for (Operation operation : operations.values()) {
+            if (!operation.undone) pending.add(operation);
+        }
+        return pending;
+    }
+
+    /**
+     * Reads every complete record. A record cut short by a crash ends the journal.
+     *
+     * @return length of the complete records
+     */
+    private long read(Map<Long, Operation> operations) throws IOException {
+        long[] consumed = {0};
+        InputStream counting = new FilterInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) consumed[0]++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) consumed[0] += n;
+                return n;
+            }
+        };
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(counting)) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a move journal: " + file);
+            valid = consumed[0];
+            while (true) {
+                byte type = in.readByte();
+                long id = in.readLong();
+                if (type == BEGIN) {
+                    int kind = in.readByte();
+                    long startedAt = in.readLong();
+                    if (kind < 0 || kind >= Kind.values().length) throw new IOException("Corrupt move journal: " + file);
+                    operations.put(id, new Operation(id, Kind.values()[kind], startedAt));
+                } else {
+                    Operation operation = operations.get(id);
+                    if (operation == null) throw new IOException("Corrupt move journal: " + file);
+                    if (type == MOVE) {
+                        String source = in.readUTF();
+                        operation.moves.put(source, in.readUTF());
+                    } else if (type == COMMIT) {
+                        operation.committed = true;
+                    } else if (type == UNDONE) {
+                        operation.undone = true;
+                    } else {
+                        throw new IOException("Corrupt move journal: " + file);
+                    }
+                }
+                valid = consumed[0];
+            }
+        } catch (EOFException e) {
+            return valid;
+        }
+    }
+
+    /**
+     * Moves the files of {@code operations} back, newest operation first. Files whose original
+     * path is taken again are left where they are and logged; their operation stays pending.
+     *
+     * @return moved-to path → original path, for every file put back
+     */
+    Map<Path, Path> undo(List<Operation> operations, int parallelism, LogSink log) throws IOException {
+        Map<Path, Path> restored = new ConcurrentHashMap<>();
+        List<Operation> newestFirst = new ArrayList<>(operations);
+        Collections.reverse(newestFirst);
+        for (Operation operation : newestFirst) {
+            if (undo(operation, parallelism, restored, log)) {
+                markUndone(operation.id);
+            }
+        }
+        if (pending().isEmpty()) {
+            Files.deleteIfExists(file);
+        }
+        return restored;
+    }
+
+    private boolean undo(Operation operation, int parallelism, Map<Path, Path> restored, LogSink log) throws IOException {
+        List<Path[]> moves = new ArrayList<>(operation.moves.size());
+        Set<Path> sourceDirectories = new HashSet<>();
+        Set<Path> targetDirectories = new HashSet<>();
+        for (Map.Entry<String, String> move : operation.moves.entrySet()) {
+            Path source = Paths.get(move.getKey());
+            Path target = Paths.get(move.getValue());
+            moves.add(new Path[] {target, source});
+            sourceDirectories.add(source.getParent());
+            targetDirectories.add(target.getParent());
+        }
+        Collections.reverse(moves);
+        for (Path directory : sourceDirectories) {
+            Files.createDirectories(directory);
+        }
+
+        int[] conflicts = new int[1];
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "sortify-undo");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> pending = new ArrayList<>();
+            for (int from = 0; from < moves.size(); from += UNDO_CHUNK) {
+                List<Path[]> chunk = moves.subList(from, Math.min(moves.size(), from + UNDO_CHUNK));
+                pending.add(pool.submit(() -> moveBack(chunk, restored, log)));
+            }
+            for (Future<Integer> future : pending) {
+                conflicts[0] += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while undoing moves", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Undo failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        removeEmptyDirectories(targetDirectories, sourceDirectories);
+        log.info("Undid " + operation.kind.name().toLowerCase() + " of " + moves.size() + " files"
+            + (conflicts[0] > 0 ? " (" + conflicts[0] + " left in place)" : ""));
+        return conflicts[0] == 0;
+    }
+
+    /**
+     * @return number of files that could not be put back
+     */
+    private static int moveBack(List<Path[]> moves, Map<Path, Path> restored, LogSink log) {
+        int conflicts = 0;
+        for (Path[] move : moves) {
+            try {
+                Files.move(move[0], move[1]);
+                restored.put(move[0], move[1]);
+            } catch (NoSuchFileException e) {
+                // never moved, or already put back
+            } catch (IOException e) {
+                conflicts++;
+                log.warn("Could not move " + move[0] + " back to " + move[1] + " - " + e);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Deletes folders the operation emptied, climbing towards the root but never into a folder
+     * a file was restored to.
+     */
+    private static void removeEmptyDirectories(Set<Path> targetDirectories, Set<Path> sourceDirectories) {
+        Set<Path> keep = new HashSet<>();
+        for (Path directory : sourceDirectories) {
+            for (Path d = directory; d != null && keep.add(d); d = d.getParent()) { }
+        }
+        List<Path> deepestFirst = new ArrayList<>(targetDirectories);
+        deepestFirst.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+        for (Path directory : deepestFirst) {
+            for (Path d = directory; d != null && !keep.contains(d); d = d.getParent()) {
+                try {
+                    Files.delete(d);
+                } catch (IOException e) {
+                    break; // not empty, or already gone
+                }
+            }
+        }
+    }
+
+    private synchronized void markUndone(long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeByte(UNDONE);
+            out.writeLong(id);
+            out.flush();
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.sortify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Function;
+
+/**
+ * Stable MSD radix sort of files by a string key (name or extension).
+ * Keys are consumed one byte at a time, the high then the low byte of each UTF-16 char,
+ * with an extra end-of-key bucket that sorts before every byte. The result is exactly
+ * the order of a stable sort with {@code Comparator.comparing(key)}, reversed for
+ * descending. Buckets of 32 or fewer keys are finished by insertion sort starting at the
+ * current char. A bucket holding every key (a shared prefix such as {@code IMG_2024})
+ * skips the redistribution and just advances, so long common prefixes are scanned only once.
+ */
+final class NameRadixSort {
+
+    private static final int RADIX = 256;
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private final String[] keys;
+    private final FileInfo[] items;
+    private final String[] auxKeys;
+    private final FileInfo[] auxItems;
+    private final boolean ascending;
+    private int[][] countsByLevel = new int[16][];
+
+    private NameRadixSort(String[] keys, FileInfo[] items, boolean ascending) {
+        this.keys = keys;
+        this.items = items;
+        this.auxKeys = new String[keys.length];
+        this.auxItems = new FileInfo[keys.length];
+        this.ascending = ascending;
+    }
+
+    static void sort(List<FileInfo> files, Function<FileInfo, String> key, boolean ascending) {
+        int n = files.size();
+        if (n < 2) return;
+        FileInfo[] items = files.toArray(new FileInfo[0]);
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.apply(items[i]);
+        }
+        new NameRadixSort(keys, items, ascending).sort(0, n, 0, 0);
+        ListIterator<FileInfo> it = files.listIterator();
+        for (FileInfo item : items) {
+            it.next();
+            it.set(item);
+        }
+    }
+
+    /**
+     * Sorts {@code [lo, hi)}, whose keys all agree on their first {@code depth} bytes.
+     */
+    private void sort(int lo, int hi, int depth, int level) {
+        int[] count = counts(level);
+        while (hi - lo > INSERTION_THRESHOLD) {
+            Arrays.fill(count, 0);
+            for (int i = lo; i < hi; i++) {
+                count[slot(byteAt(keys[i], depth)) + 1]++;
+            }
+            int first = slot(byteAt(keys[lo], depth));
+            if (count[first + 1] == hi - lo) {
+                if (byteAt(keys[lo], depth) == 0) return; // every key ended: all equal
+                depth++;
+                continue;
+            }
+            for (int s = 0; s <= RADIX; s++) {
+                count[s + 1] += count[s];
+            }
+            for (int i = lo; i < hi; i++) {
+                int position = lo + count[slot(byteAt(keys[i], depth))]++;
+                auxKeys[position] = keys[i];
+                auxItems[position] = items[i];
+            }
+            System.arraycopy(auxKeys, lo, keys, lo, hi - lo);
+            System.arraycopy(auxItems, lo, items, lo, hi - lo);
+
+            // count[s] is now the end of slot s; keys that ended at this depth are already in place
+            int ended = slot(0);
+            int start = lo;
+            for (int s = 0; s <= RADIX; s++) {
+                int end = lo + count[s];
+                if (s != ended && end - start > 1) {
+                    sort(start, end, depth + 1, level + 1);
+                }
+                start = end;
+            }
+            return;
+        }
+        insertionSort(lo, hi, depth >>> 1);
+    }
+
+    /**
+     * Byte {@code depth} of the key: 0 past its end, otherwise 1 + the high (even depth)
+     * or low (odd depth) byte of char {@code depth / 2}.
+     */
+    private static int byteAt(String key, int depth) {
+        int index = depth >>> 1;
+        if (index >= key.length()) return 0;
+        char c = key.charAt(index);
+        return 1 + ((depth & 1) == 0 ? c >>> 8 : c & 0xFF);
+    }
+
+    /**
+     * Position of a bucket in output order; descending reverses the buckets, end-of-key last.
+     */
+    private int slot(int bucket) {
+        return ascending ? bucket : RADIX - bucket;
+    }
+
+    private int[] counts(int level) {
+        if (level >= countsByLevel.length) {
+            countsByLevel = Arrays.copyOf(countsByLevel, level * 2);
+        }
+        if (countsByLevel[level] == null) {
+            countsByLevel[level] = new int[RADIX + 2];
+        }
+        return countsByLevel[level];
+    }
+
+    private void insertionSort(int lo, int hi, int from) {
+        for (int i = lo + 1; i < hi; i++) {
+            String key = keys[i];
+            FileInfo item = items[i];
+            int j = i - 1;
+            while (j >= lo && outOfOrder(keys[j], key, from)) {
+                keys[j + 1] = keys[j];
+                items[j + 1] = items[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            items[j + 1] = item;
+        }
+    }
+
+    private boolean outOfOrder(String before, String after, int from) {
+        int cmp = compareFrom(before, after, from);
+        return ascending ? cmp > 0 : cmp < 0;
+    }
+
+    /**
+     * String.compareTo for keys known to share their first {@code from} chars.
+     */
+    private static int compareFrom(String a, String b, int from) {
+        int limit = Math.min(a.length(), b.length());
+        for (int i = from; i < limit; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) return x - y;
+        }
+        return a.length() - b.length();
+    }
+}
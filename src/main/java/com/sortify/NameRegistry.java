@@ -0,0 +1,89 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Free file names in one destination directory, for a single organize, recovery or
+ * restore operation. The registry is seeded by one listing of the directory and then hands
+ * out names without touching the disk. A clash is resolved as {@code base<tag>N.ext}
+ * with the lowest free N, exactly like probing _1, _2, ... on disk. The next N to try is
+ * remembered per base name and tag, so a thousand {@code IMG_0001.jpg}s cost a thousand
+ * set lookups rather than half a million exists() calls. Thread-safe.
+ */
+final class NameRegistry {
+
+    private final Path directory;
+    private final Set<String> claimed;
+    private final Map<String, Integer> nextCounter = new HashMap<>();
+
+    private NameRegistry(Path directory, Set<String> claimed) {
+        this.directory = directory;
+        this.claimed = claimed;
+    }
+
+    /**
+     * Registry for an existing directory, seeded with the names already in it.
+     */
+    static NameRegistry of(Path directory) throws IOException {
+        Set<String> names = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                names.add(entry.getFileName().toString());
+            }
+        }
+        return new NameRegistry(directory, names);
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Claims {@code name} in the directory, or its first free {@code base<tag>N.ext} variant.
+     */
+    synchronized Path claim(String name, String tag) {
+        if (claimed.add(name)) return directory.resolve(name);
+        int dot = name.lastIndexOf('.');
+        String base = dot >= 0 ? name.substring(0, dot) : name;
+        String extension = dot >= 0 ? name.substring(dot) : "";
+        String key = base + '\0' + tag + '\0' + extension;
+        int counter = nextCounter.getOrDefault(key, 1);
+        String candidate;
+        do {
+            candidate = base + tag + counter++ + extension;
+        } while (!claimed.add(candidate));
+        nextCounter.put(key, counter);
+        return directory.resolve(candidate);
+    }
+
+    /**
+     * Like {@link #claim}, but also skips names that exist on disk. Used when a move hits a
+     * name the listing did not show (created since, or a case-insensitive clash).
+     */
+    synchronized Path claimOnDisk(String name, String tag) {
+        Path target;
+        do {
+            target = claim(name, tag);
+        } while (Files.exists(target, LinkOption.NOFOLLOW_LINKS));
+        return target;
+    }
+
+    /**
+     * Moves {@code source} into the directory under {@code name} or a free variant of it.
+     *
+     * @return where the file ended up
+     */
+    Path move(Path source, String name, String tag) throws IOException {
+        Path target = claim(name, tag);
+        try {
+            return Files.move(source, target);
+        } catch (FileAlreadyExistsException e) {
+            return Files.move(source, claimOnDisk(name, tag));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.sortify;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Streaming scan: the walker pushes files through a bounded SubmissionPublisher, and the
+ * downstream stages (classification, writing the inventory) run while the walk is still in
+ * progress.
+ * When the buffer is full the walker blocks, so memory between stages stays bounded.
+ * With more than one classification worker, arriving files are handed to a fork-join pool
+ * in chunks, so classification runs in parallel with itself as well as with the walk. Each
+ * chunk counts into its own stats; they are merged in chunk order as chunks finish.
+ */
+class ScanPipeline {
+
+    static final int BUFFER_CAPACITY = 1024;
+    static final int STAGE_CHUNK = 512;
+
+    private ScanPipeline() {
+    }
+
+    /**
+     * Cold publisher: every subscription starts its own walk on a background thread.
+     */
+    static Flow.Publisher<FileInfo> publisher(DirectoryWalker walker, Path root) {
+        return subscriber -> {
+            SubmissionPublisher<FileInfo> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), BUFFER_CAPACITY);
+            publisher.subscribe(subscriber);
+            Thread thread = new Thread(() -> {
+                try {
+                    walker.walk(root, publisher::submit);
+                    publisher.close();
+                } catch (IOException | RuntimeException e) {
+                    publisher.closeExceptionally(e);
+                }
+            }, "sortify-scan");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+
+    /**
+     * Classifies each file as it arrives, on up to {@code parallelism} workers, and writes it
+     * into a new inventory; the files themselves are dropped once their row is written.
+     * Arrival order depends on thread timing, so the rows are put in location order at the
+     * end. The classifier logs its merged stats once.
+     *
+     * @param classifier may be null to only collect
+     */
+    static ScanResult collect(Flow.Publisher<FileInfo> publisher, FileOrganizer.Classifier classifier, int parallelism) throws IOException {
+        CompletableFuture<ScanResult> done = new CompletableFuture<>();
+        ForkJoinPool workers = classifier != null && parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        FileInventory inventory = new FileInventory();
+        publisher.subscribe(new Flow.Subscriber<FileInfo>() {
+            private final List<FileInfo> pending = new ArrayList<>();
+            private final Deque<ForkJoinTask<FileOrganizer.ClassificationStats>> staged = new ArrayDeque<>();
+            private final FileOrganizer.ClassificationStats stats = new FileOrganizer.ClassificationStats();
+            private Flow.Subscription subscription;
+            private int received = 0;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(BUFFER_CAPACITY);
+            }
+
+            @Override
+            public void onNext(FileInfo file) {
+                if (workers != null) {
+                    pending.add(file);
+                    if (pending.size() == STAGE_CHUNK) stageChunk();
+                } else {
+                    if (classifier != null) classifier.classify(file, stats);
+                    inventory.add(file);
+                }
+                if (++received % (BUFFER_CAPACITY / 2) == 0) {
+                    subscription.request(BUFFER_CAPACITY / 2);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            /**
+             * Hands the pending files to a worker, which classifies them and writes their
+             * rows. Finished chunks at the head are merged right away, in chunk order, so
+             * their files can be collected.
+             */
+            private void stageChunk() {
+                List<FileInfo> batch = List.copyOf(pending);
+                pending.clear();
+                staged.add(workers.submit(() -> {
+                    FileOrganizer.ClassificationStats chunkStats = classifier.classifyAll(batch);
+                    inventory.addAll(batch);
+                    return chunkStats;
+                }));
+                while (!staged.isEmpty() && staged.peekFirst().isDone()) {
+                    stats.merge(staged.pollFirst().join());
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (workers != null) {
+                    if (!pending.isEmpty()) stageChunk();
+                    try {
+                        while (!staged.isEmpty()) stats.merge(staged.pollFirst().join());
+                    } catch (RuntimeException | Error e) {
+                        done.completeExceptionally(e);
+                        return;
+                    }
+                }
+                if (classifier != null) classifier.report(received, stats);
+                inventory.sortByLocation();
+                done.complete(new ScanResult(inventory));
+            }
+        });
+
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Scan interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException("Scan failed", e.getCause());
+        } finally {
+            if (workers != null) workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.sortify;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output of the streaming scan pipeline: the inventory the scanned files were written into,
+ * and the modification time of every walked folder when the walker recorded them.
+ */
+public class ScanResult {
+    private final FileInventory inventory;
+    private final Map<Path, Long> directoryTimes;
+
+    public ScanResult(FileInventory inventory) {
+        this(inventory, null);
+    }
+
+    public ScanResult(FileInventory inventory, Map<Path, Long> directoryTimes) {
+        this.inventory = inventory;
+        this.directoryTimes = directoryTimes;
+    }
+
+    public FileInventory getInventory() { return inventory; }
+
+    /**
+     * The scanned files as views of the inventory's rows; see {@link FileInventory#asList()}.
+     */
+    public List<FileInfo> getFiles() { return inventory.asList(); }
+
+    /**
+     * Folder → modification time in epoch nanos, read before the folder was listed;
+     * null when not recorded.
+     */
+    public Map<Path, Long> getDirectoryTimes() { return directoryTimes; }
+}
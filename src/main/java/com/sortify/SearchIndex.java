@@ -0,0 +1,265 @@
+package com.sortify;
+
+import java.util.*;
+
+/**
+ * Substring search over file names, extensions and categories, keyed by
+ * {@link FileInventory#getKey(int)}.
+ * Names go into a trigram inverted index: each distinct three-char sequence of a lowercased
+ * name maps to the sorted keys containing it. A query of three chars or more intersects the
+ * postings of its trigrams, smallest first, and verifies the survivors with contains(), so
+ * only real matches come back. Extensions and categories come from small tables; the query
+ * is matched against each distinct value once and the per-key ids are scanned. Queries
+ * shorter than a trigram scan the cached lowercase names.
+ * Updates are incremental. A removed or renamed key leaves its old postings behind as
+ * stale entries, which verification skips; the postings are rebuilt once stale entries
+ * outnumber live ones.
+ */
+final class SearchIndex {
+
+    private static final int GRAM = 3;
+
+    // Open-addressed trigram → postings table; a trigram is three chars packed into a long
+    private long[] grams = new long[1 << 12];
+    private Postings[] postings = new Postings[1 << 12];
+    private int gramCount;
+    private String[] names = new String[1024]; // lowercased, null once removed
+    private int[] extension = new int[1024];
+    private int[] category = new int[1024];
+    private final BitSet live = new BitSet();
+    private final Table extensions = new Table();
+    private final Table categories = new Table();
+    private long entries;
+    private long staleEntries;
+
+    /**
+     * Keys of one trigram. Appends stay sorted while keys arrive in order; anything else
+     * sorts and dedupes lazily on the next query.
+     */
+    private static final class Postings {
+        int[] keys = new int[4];
+        int size;
+        boolean sorted = true;
+
+        void add(int key) {
+            if (size > 0) {
+                int last = keys[size - 1];
+                if (last == key) return;
+                if (last > key) sorted = false;
+            }
+            if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+            keys[size++] = key;
+        }
+
+        void normalize() {
+            if (sorted) return;
+            Arrays.sort(keys, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || keys[unique - 1] != keys[i]) keys[unique++] = keys[i];
+            }
+            size = unique;
+            sorted = true;
+        }
+    }
+
+    /**
+     * Distinct lowercased values of a small column.
+     */
+    private static final class Table {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        int id(String value) {
+            String lower = value == null ? "" : value.toLowerCase();
+            return ids.computeIfAbsent(lower, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        BitSet matching(String query) {
+            BitSet matches = new BitSet();
+            for (int id = 0; id < values.size(); id++) {
+                if (values.get(id).contains(query)) matches.set(id);
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Index over the given rows of an inventory; the caller holds the inventory's lock.
+     */
+    static SearchIndex of(FileInventory inventory, int[] rows) {
+        SearchIndex index = new SearchIndex();
+        for (int row : rows) {
+            index.put(inventory.getKey(row), inventory.getName(row), inventory.getExtension(row), inventory.getCategory(row));
+        }
+        return index;
+    }
+
+    /**
+     * Adds a key, or updates it after its file was renamed, moved or reclassified.
+     */
+    synchronized void put(int key, String name, String extensionValue, String categoryValue) {
+        if (key >= names.length) {
+            int capacity = Math.max(names.length * 2, key + 1);
+            names = Arrays.copyOf(names, capacity);
+            extension = Arrays.copyOf(extension, capacity);
+            category = Arrays.copyOf(category, capacity);
+        }
+        extension[key] = extensions.id(extensionValue);
+        category[key] = categories.id(categoryValue);
+        String lower = name == null ? "" : name.toLowerCase();
+        String previous = live.get(key) ? names[key] : null;
+        live.set(key);
+        names[key] = lower;
+        if (lower.equals(previous)) return;
+        if (previous != null) staleEntries += trigramCount(previous);
+        index(key, lower);
+        compactIfStale();
+    }
+
+    synchronized void remove(int key) {
+        if (!live.get(key)) return;
+        staleEntries += trigramCount(names[key]);
+        live.clear(key);
+        names[key] = null;
+        compactIfStale();
+    }
+
+    synchronized int size() {
+        return live.cardinality();
+    }
+
+    /**
+     * Keys whose name, extension or category contains {@code query}, ignoring case, ascending.
+     */
+    synchronized int[] search(String query) {
+        String lower = query.toLowerCase();
+        BitSet matches = new BitSet();
+        if (lower.length() < GRAM) {
+            for (int key = live.nextSetBit(0); key >= 0; key = live.nextSetBit(key + 1)) {
+                if (names[key].contains(lower)) matches.set(key);
+            }
+        } else {
+            int[] candidates = candidates(lower);
+            for (int key : candidates) {
+                if (live.get(key) && names[key].contains(lower)) matches.set(key);
+            }
+        }
+
+        BitSet extensionMatches = extensions.matching(lower);
+        BitSet categoryMatches = categories.matching(lower);
+        if (!extensionMatches.isEmpty() || !categoryMatches.isEmpty()) {
+            for (int key = live.nextSetBit(0); key >= 0; key = live.nextSetBit(key + 1)) {
+                if (extensionMatches.get(extension[key]) || categoryMatches.get(category[key])) matches.set(key);
+            }
+        }
+        return matches.stream().toArray();
+    }
+
+    /**
+     * Intersection of the postings of every trigram in the query.
+     */
+    private int[] candidates(String query) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            grams.add(gram(query, i));
+        }
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (long gram : grams) {
+            Postings list = postings[slot(gram)];
+            if (list == null) return new int[0];
+            list.normalize();
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).keys, lists.get(0).size);
+        int size = result.length;
+        for (int l = 1; l < lists.size() && size > 0; l++) {
+            Postings list = lists.get(l);
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < size; i++) {
+                int at = Arrays.binarySearch(list.keys, from, list.size, result[i]);
+                if (at >= 0) {
+                    result[kept++] = result[i];
+                    from = at + 1;
+                } else {
+                    from = -at - 1;
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void index(int key, String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            long gram = gram(name, i);
+            int slot = slot(gram);
+            if (postings[slot] == null) {
+                if ((gramCount + 1) * 2 > grams.length) {
+                    rehash();
+                    slot = slot(gram);
+                }
+                grams[slot] = gram;
+                postings[slot] = new Postings();
+                gramCount++;
+            }
+            postings[slot].add(key);
+            entries++;
+        }
+    }
+
+    /**
+     * Slot holding {@code gram}, or the empty slot where it belongs.
+     */
+    private int slot(long gram) {
+        int mask = grams.length - 1;
+        int slot = (int) (gram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (postings[slot] != null && grams[slot] != gram) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldGrams = grams;
+        Postings[] oldPostings = postings;
+        grams = new long[oldGrams.length * 2];
+        postings = new Postings[oldGrams.length * 2];
+        for (int i = 0; i < oldGrams.length; i++) {
+            if (oldPostings[i] != null) {
+                int slot = slot(oldGrams[i]);
+                grams[slot] = oldGrams[i];
+                postings[slot] = oldPostings[i];
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the postings from the live names once most entries are stale.
+     */
+    private void compactIfStale() {
+        if (staleEntries < 1024 || staleEntries * 2 < entries) return;
+        grams = new long[1 << 12];
+        postings = new Postings[1 << 12];
+        gramCount = 0;
+        entries = 0;
+        staleEntries = 0;
+        for (int key = live.nextSetBit(0); key >= 0; key = live.nextSetBit(key + 1)) {
+            index(key, names[key]);
+        }
+    }
+
+    private static int trigramCount(String name) {
+        return Math.max(0, name.length() - GRAM + 1);
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,449 @@
+package com.sortify;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Saved scan of one workspace, so a restart can skip the walk and the rehash.
+ * The file is versioned and written sequentially. It holds a header, a folder table
+ * (path relative to the root, plus modification time), a category table, then one
+ * fixed-layout record per file: folder id, name, size, timestamps, category id and
+ * full digest. The modification time is the file system's epoch nanoseconds, as in
+ * HashCache, so it compares exactly whatever the time zone. Loading is a single buffered
+ * read straight into a FileInventory.
+ * validate() then checks the snapshot against the live tree in parallel. Each file is
+ * one attribute read: files that are gone are dropped, and changed files are updated
+ * and lose their digest. Only folders whose modification time moved are listed again,
+ * to find new files. The folder table holds every folder the scan walked, empty ones
+ * included, with the time the walk read before listing it; a folder added to the tree
+ * after the scan, such as an organize destination, is saved without a time and is always
+ * listed again.
+ */
+final class WorkspaceSnapshot {
+
+    private static final int MAGIC = 0x53575331; // "SWS1"
+    private static final int VERSION = 1;
+    private static final int DIGEST_LENGTH = 32;
+    private static final int VALIDATE_CHUNK = 1024;
+    private static final long MISSING = Long.MIN_VALUE;
+    // Smallest encodings, for checking counts against the bytes left in the file
+    private static final int MIN_DIRECTORY_BYTES = 2 + 8;
+    private static final int MIN_CATEGORY_BYTES = 2;
+    private static final int MIN_FILE_BYTES = 4 + 2 + 8 + 8 + 8 + 4 + 1;
+
+    private static final byte UNCHANGED = 0;
+    private static final byte CHANGED = 1;
+    private static final byte REMOVED = 2;
+
+    private final Path root;
+    private final boolean includeSubfolders;
+    private final boolean includeHidden;
+    private final boolean duplicatesDetected;
+    private final List<Path> directories;
+    private final long[] directoryTimes;
+    private FileInventory files;
+
+    private ScanResult scan;
+    private Map<String, List<FileInfo>> duplicates;
+    private int changed;
+    private int removed;
+    private int added;
+
+    private WorkspaceSnapshot(Path root, boolean includeSubfolders, boolean includeHidden, boolean duplicatesDetected,
+                              List<Path> directories, long[] directoryTimes) {
+        this.root = root;
+        this.includeSubfolders = includeSubfolders;
+        this.includeHidden = includeHidden;
+        this.duplicatesDetected = duplicatesDetected;
+        this.directories = directories;
+        this.directoryTimes = directoryTimes;
+    }
+
+    /**
+     * File for a workspace root inside the store; {@code suffix} tells the snapshot from the
+     * move journal.
+     */
+    static Path fileFor(Path store, Path root, String suffix) {
+        String key = root.toAbsolutePath().normalize().toString();
+        return store.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + suffix);
+    }
+
+    Path getRoot() { return root; }
+
+    boolean isIncludeSubfolders() { return includeSubfolders; }
+
+    boolean isIncludeHidden() { return includeHidden; }
+
+    /**
+     * Validated files and the folder times for the next save. Only available after validate().
+     */
+    ScanResult getScan() { return scan; }
+
+    /**
+     * Duplicate groups rebuilt from the saved digests, or null when duplicates had not been
+     * detected when the snapshot was saved.
+     */
+    Map<String, List<FileInfo>> getDuplicates() { return duplicates; }
+
+    int getChanged() { return changed; }
+
+    int getRemoved() { return removed; }
+
+    int getAdded() { return added; }
+
+    /**
+     * Writes a snapshot through a temporary file and an atomic rename, like HashCache.
+     * Holds the inventory's lock while writing, so rows cannot move under it.
+     *
+     * @param directoryTimes folder times recorded by the walk; may be null
+     * @return the number of files written
+     */
+    static int write(Path file, Path root, boolean includeSubfolders, boolean includeHidden,
+                     FileInventory files, Map<Path, Long> directoryTimes, boolean duplicatesDetected) throws IOException {
+        Path base = root.toAbsolutePath().normalize();
+        Map<Path, Long> times = new HashMap<>();
+        if (directoryTimes != null) {
+            for (Map.Entry<Path, Long> entry : directoryTimes.entrySet()) {
+                times.put(entry.getKey().toAbsolutePath().normalize(), entry.getValue());
+            }
+        }
+
+        synchronized (files) {
+            // Folder table: every folder holding a file and its ancestors up to the root,
+            // then the walked folders holding none
+            int rows = files.size();
+            Map<Path, Integer> directoryIds = new HashMap<>();
+            List<Path> directories = new ArrayList<>();
+            int[] tableId = new int[files.directoryCount()]; // inventory folder id → folder table id
+            Arrays.fill(tableId, -1);
+            Map<String, Integer> categoryIds = new LinkedHashMap<>();
+            int[] categoryOf = new int[rows];
+            for (int row = 0; row < rows; row++) {
+                int folder = files.getDirectoryId(row);
+                if (tableId[folder] < 0) {
+                    Path parent = files.getPath(row).toAbsolutePath().normalize().getParent();
+                    Integer id = directoryIds.get(parent);
+                    if (id == null) {
+                        id = directories.size();
+                        for (Path dir = parent; dir != null && dir.startsWith(base) && !directoryIds.containsKey(dir); dir = dir.getParent()) {
+                            directoryIds.put(dir, directories.size());
+                            directories.add(dir);
+                        }
+                    }
+                    tableId[folder] = id;
+                }
+                String category = files.getCategory(row);
+                categoryOf[row] = category == null ? -1 : categoryIds.computeIfAbsent(category, k -> categoryIds.size());
+            }
+            List<Path> walkedOnly = new ArrayList<>();
+            for (Path dir : times.keySet()) {
+                if (dir.startsWith(base) && !directoryIds.containsKey(dir)) walkedOnly.add(dir);
+            }
+            Collections.sort(walkedOnly);
+            directories.addAll(walkedOnly);
+
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(base.toString());
+                out.writeBoolean(includeSubfolders);
+                out.writeBoolean(includeHidden);
+                out.writeBoolean(duplicatesDetected);
+
+                out.writeInt(directories.size());
+                for (Path dir : directories) {
+                    out.writeUTF(base.relativize(dir).toString());
+                    out.writeLong(times.getOrDefault(dir, MISSING));
+                }
+                out.writeInt(categoryIds.size());
+                for (String category : categoryIds.keySet()) {
+                    out.writeUTF(category);
+                }
+
+                out.writeInt(rows);
+                byte[] digest = new byte[DIGEST_LENGTH];
+                for (int row = 0; row < rows; row++) {
+                    out.writeInt(tableId[files.getDirectoryId(row)]);
+                    out.writeUTF(files.getName(row));
+                    out.writeLong(files.getSize(row));
+                    out.writeLong(files.getCreatedNanos(row));
+                    out.writeLong(files.getModifiedNanos(row));
+                    out.writeInt(categoryOf[row]);
+                    boolean hasDigest = files.getDigest(row, digest);
+                    out.writeBoolean(hasDigest);
+                    if (hasDigest) out.write(digest);
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        }
+    }
+
+    /**
+     * Reads a snapshot without touching the tree it describes.
+     *
+     * @throws IOException when the file is unreadable, truncated, corrupt or of another version
+     */
+    static WorkspaceSnapshot read(Path file) throws IOException {
+        long length = Files.size(file);
+        CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try (DataInputStream in = new DataInputStream(counting)) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a workspace snapshot: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported workspace snapshot version " + version);
+            Path root = Paths.get(in.readUTF());
+            boolean includeSubfolders = in.readBoolean();
+            boolean includeHidden = in.readBoolean();
+            boolean duplicatesDetected = in.readBoolean();
+
+            int directoryCount = count(in.readInt(), MIN_DIRECTORY_BYTES, length - counting.position);
+            List<Path> directories = new ArrayList<>(directoryCount);
+            long[] directoryTimes = new long[directoryCount];
+            for (int d = 0; d < directoryCount; d++) {
+                directories.add(root.resolve(in.readUTF()));
+                directoryTimes[d] = in.readLong();
+            }
+            String[] categories = new String[count(in.readInt(), MIN_CATEGORY_BYTES, length - counting.position)];
+            for (int c = 0; c < categories.length; c++) {
+                categories[c] = in.readUTF();
+            }
+
+            int fileCount = count(in.readInt(), MIN_FILE_BYTES, length - counting.position);
+            FileInventory files = new FileInventory(fileCount);
+            byte[] digest = new byte[DIGEST_LENGTH];
+            for (int i = 0; i < fileCount; i++) {
+                Path dir = directories.get(in.readInt());
+                String name = in.readUTF();
+                long size = in.readLong();
+                long created = in.readLong();
+                long modified = in.readLong();
+                int category = in.readInt();
+                if (name.isEmpty()) throw new IOException("Corrupt workspace snapshot");
+                int row = files.add(dir.resolve(name), size, created, modified);
+                if (category >= 0) files.setCategory(row, categories[category]);
+                if (in.readBoolean()) {
+                    in.readFully(digest);
+                    files.setDigest(row, digest);
+                }
+            }
+
+            WorkspaceSnapshot snapshot = new WorkspaceSnapshot(root, includeSubfolders, includeHidden, duplicatesDetected, directories, directoryTimes);
+            snapshot.files = files;
+            return snapshot;
+        } catch (IndexOutOfBoundsException | InvalidPathException e) {
+            throw new IOException("Corrupt workspace snapshot", e);
+        }
+    }
+
+    /**
+     * A table size read from the file, rejected unless that many entries could fit in the
+     * bytes that are left.
+     */
+    private static int count(int count, int minBytes, long remaining) throws IOException {
+        if (count < 0 || (long) count * minBytes > remaining) throw new IOException("Corrupt workspace snapshot");
+        return count;
+    }
+
+    /**
+     * Brings the snapshot up to date with the tree on disk.
+     *
+     * @param mapper builds entries for files that are new since the snapshot
+     * @param stage re-run on new and changed files, as during a scan; may be null
+     */
+    void validate(int parallelism, BiFunction<Path, BasicFileAttributes, FileInfo> mapper, Consumer<FileInfo> stage) throws IOException {
+        Class<? extends BasicFileAttributes> attributeType = DirectoryWalker.attributeType();
+        int count = files.size();
+        byte[] state = new byte[count];
+        long[] liveDirectoryTimes = new long[directories.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RangeTask(0, count, row -> state[row] = check(row, attributeType)));
+            pool.invoke(new RangeTask(0, directories.size(), d -> liveDirectoryTimes[d] = modifiedTime(directories.get(d))));
+        } finally {
+            pool.shutdown();
+        }
+
+        int[] gone = new int[count];
+        List<FileInfo> restage = new ArrayList<>();
+        for (int row = 0; row < count; row++) {
+            if (state[row] == REMOVED) {
+                gone[removed++] = row;
+            } else if (state[row] == CHANGED) {
+                files.setHash(row, null);
+                restage.add(files.view(row));
+            }
+        }
+        changed = restage.size();
+
+        // New files can only be in folders whose listing changed, or in folders new to the snapshot
+        Map<Path, Set<String>> relist = new LinkedHashMap<>();
+        for (int d = 0; d < directories.size(); d++) {
+            if (liveDirectoryTimes[d] != MISSING && liveDirectoryTimes[d] != directoryTimes[d]) {
+                relist.put(directories.get(d), new HashSet<>());
+            }
+        }
+        if (!relist.isEmpty()) {
+            for (int row = 0; row < count; row++) {
+                Set<String> names = state[row] == REMOVED ? null : relist.get(files.getDirectory(row));
+                if (names != null) names.add(files.getName(row));
+            }
+        }
+        files.remove(Arrays.copyOf(gone, removed));
+
+        Set<Path> known = new HashSet<>(directories);
+        List<FileInfo> found = new ArrayList<>();
+        Map<Path, Long> walkedTimes = new HashMap<>();
+        for (Map.Entry<Path, Set<String>> entry : relist.entrySet()) {
+            findNewFiles(entry.getKey(), entry.getValue(), known, attributeType, parallelism, mapper, found, walkedTimes);
+        }
+        added = found.size();
+        for (FileInfo file : found) {
+            restage.add(files.view(files.add(file)));
+        }
+
+        // Times for the next save: live ones were read before any relisting above
+        Map<Path, Long> nextTimes = new HashMap<>(walkedTimes);
+        for (int d = 0; d < directories.size(); d++) {
+            if (liveDirectoryTimes[d] != MISSING) nextTimes.put(directories.get(d), liveDirectoryTimes[d]);
+        }
+
+        if (stage != null) {
+            for (FileInfo file : restage) {
+                stage.accept(file);
+            }
+        }
+        files.sortByLocation();
+
+        if (duplicatesDetected) {
+            duplicates = new HashMap<>();
+            for (int[] group : files.digestGroups(files.filter(row -> true))) {
+                duplicates.put(files.getHash(group[0]), files.asList(group));
+            }
+        }
+        scan = new ScanResult(files, nextTimes);
+    }
+
+    /**
+     * Compares one row against the disk; a changed file takes the live size and times.
+     * Rows are checked in parallel, each writing only its own row.
+     */
+    private byte check(int row, Class<? extends BasicFileAttributes> attributeType) {
+        Path path = files.getPath(row);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, attributeType, LinkOption.NOFOLLOW_LINKS);
+            if (attrs.isSymbolicLink()) attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return REMOVED;
+        }
+        if (!attrs.isRegularFile()) return REMOVED;
+        long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        if (attrs.size() == files.getSize(row) && modified == files.getModifiedNanos(row)) return UNCHANGED;
+        files.update(row, attrs.size(), attrs.creationTime().to(TimeUnit.NANOSECONDS), modified);
+        return CHANGED;
+    }
+
+    private void findNewFiles(Path directory, Set<String> knownNames, Set<Path> knownDirectories,
+                              Class<? extends BasicFileAttributes> attributeType, int parallelism,
+                              BiFunction<Path, BasicFileAttributes, FileInfo> mapper, List<FileInfo> found,
+                              Map<Path, Long> walkedTimes) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                if (knownNames.contains(entry.getFileName().toString())) continue;
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, attributeType, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isSymbolicLink()) {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                        if (!attrs.isRegularFile()) continue;
+                    }
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (attrs.isDirectory()) {
+                    if (includeSubfolders && !knownDirectories.contains(entry)) {
+                        Map<Path, Long> times = new ConcurrentHashMap<>();
+                        DirectoryWalker walker = new DirectoryWalker(parallelism, true, includeHidden, mapper);
+                        walker.recordDirectoryTimes(times);
+                        found.addAll(walker.walk(entry));
+                        walkedTimes.putAll(times);
+                    }
+                } else if (attrs.isRegularFile() && (includeHidden || !DirectoryWalker.isHidden(entry, attrs))) {
+                    found.add(mapper.apply(entry, attrs));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // removed since the time check
+        }
+    }
+
+    private static long modifiedTime(Path directory) {
+        try {
+            return Files.getLastModifiedTime(directory, LinkOption.NOFOLLOW_LINKS).to(TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long position;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) position += n;
+            return n;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer body;
+
+        RangeTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= VALIDATE_CHUNK) {
+                for (int i = from; i < to; i++) body.accept(i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, body), new RangeTask(mid, to, body));
+        }
+    }
+}
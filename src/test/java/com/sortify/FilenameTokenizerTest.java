@@ -0,0 +1,76 @@
+package com.sortify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilenameTokenizerTest {
+
+    private static final String[] NAMES = {
+        "", "a", "A", "report.pdf", "Annual_Report-2024 (final).DOCX", "__init__.py", ".gitignore",
+        "...", "-", "   ", "a  b", "trailing.", "IMG_0001.JPG", "MiXeD.CaSe.Name", "x1y2z3",
+        "Übersicht.pdf", "naïve café.txt", "İstanbul.jpg", "ISTANBUL.jpg", "straße.txt",
+        "ﬁle.txt", "日本語のファイル.txt", "emoji😀name.png", "Ω-omega.bin",
+        "tab\tseparated\nname", "\uD800broken surrogate", "KKelvin.txt"
+    };
+
+    @Test
+    void matchesRegexPipelineOnEdgeCases() {
+        for (String name : NAMES) {
+            assertEquals(expected(name), tokens(name), name);
+        }
+    }
+
+    @Test
+    void matchesRegexPipelineInTurkishLocale() {
+        Locale original = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            for (String name : NAMES) {
+                assertEquals(expected(name), tokens(name), name);
+            }
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    @Test
+    void matchesRegexPipelineOnGeneratedNames() {
+        char[] alphabet = "aZ09_.- \t()Éßİı日K".toCharArray();
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            char[] name = new char[random.nextInt(16)];
+            for (int i = 0; i < name.length; i++) {
+                name[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String text = new String(name);
+            assertEquals(expected(text), tokens(text), text);
+        }
+    }
+
+    private static List<String> expected(String name) {
+        return Arrays.asList(name.toLowerCase().replaceAll("[^a-zA-Z0-9]", " ").split("\\s+"));
+    }
+
+    /**
+     * Token texts with ASCII folded, the way the keyword matcher sees them.
+     */
+    private static List<String> tokens(String name) {
+        List<String> tokens = new ArrayList<>();
+        FilenameTokenizer.tokenize(name, (text, start, end) -> {
+            StringBuilder token = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                char ch = text.charAt(i);
+                token.append(ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch);
+            }
+            tokens.add(token.toString());
+        });
+        return tokens;
+    }
+}